@@ -0,0 +1,57 @@
+package com.kanak.emptylayout;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+/**
+ * The single low priority thread the library uses to prepare views and text ahead of time
+ */
+final class BackgroundExecutor {
+
+	private static Executor sExecutor;
+	private static final Handler sMainHandler = new Handler(Looper.getMainLooper());
+
+	private BackgroundExecutor() {
+	}
+
+	/**
+	 * Runs a task on the background thread
+	 * @param task the task
+	 */
+	static void execute(Runnable task) {
+		get().execute(task);
+	}
+
+	/**
+	 * Runs a task on the main thread, e.g. to hand over the result of a background task
+	 * @param task the task
+	 */
+	static void postToMainThread(Runnable task) {
+		sMainHandler.post(task);
+	}
+
+	private static synchronized Executor get() {
+		if (sExecutor == null) {
+			sExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(final Runnable r) {
+					Thread thread = new Thread(new Runnable() {
+						@Override
+						public void run() {
+							Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+							r.run();
+						}
+					}, "EmptyLayout background");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return sExecutor;
+	}
+}
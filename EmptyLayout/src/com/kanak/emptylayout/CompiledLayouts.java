@@ -0,0 +1,213 @@
+package com.kanak.emptylayout;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.drawable.Drawable;
+import android.util.SparseArray;
+import android.util.TypedValue;
+import android.view.Gravity;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.Button;
+import android.widget.ImageView;
+import android.widget.LinearLayout;
+import android.widget.TextView;
+
+/**
+ * Builds state layouts directly in code instead of inflating them from XML, which skips parsing their XML and creating their views by reflection.
+ * Only used after {@link #setEnabled(boolean)} was called with true, by default every layout is inflated from its resource.
+ * Factories for the default loading, empty and error layouts are registered, and other layouts can be added with {@link #register(int, Factory)}.
+ * They are then used by {@link EmptyLayout#setLoadingViewRes(int)}, {@link EmptyLayout#setEmptyViewRes(int)}, {@link EmptyLayout#setErrorViewRes(int)} and {@link StateViewPool}.
+ * <p>
+ * A factory replaces the resource it is registered for, including any version of it the app merged in. Don't enable compiled layouts in apps which override
+ * <code>view_empty</code>, <code>view_loading</code> or <code>view_error</code> with their own resources, or call {@link #unregister(int)} for those layouts first.
+ */
+public final class CompiledLayouts {
+
+	private static final SparseArray<Factory> sFactories = new SparseArray<Factory>();
+	private static boolean sEnabled = false;
+
+	/**
+	 * Builds the views of a layout
+	 */
+	public interface Factory {
+		/**
+		 * Builds the layout
+		 * @param context the context the views are created with
+		 * @return the root of the layout, without layout parameters like a layout inflated without a parent
+		 */
+		View create(Context context);
+	}
+
+	static {
+		sFactories.put(R.layout.view_empty, new MessageLayoutFactory(R.string.empty_message, R.drawable.ic_empty, R.id.buttonEmpty, R.string.empty_button));
+		sFactories.put(R.layout.view_error, new MessageLayoutFactory(R.string.error_message, R.drawable.ic_error, R.id.buttonError, R.string.error_button));
+		sFactories.put(R.layout.view_loading, new LoadingLayoutFactory());
+	}
+
+	private CompiledLayouts() {
+	}
+
+	// ---------------------------
+	// public methods
+	// ---------------------------
+
+	/**
+	 * Registers the code which builds a layout
+	 * @param layoutRes the resource of the layout
+	 * @param factory the factory which builds the same views as the layout resource
+	 */
+	public static synchronized void register(int layoutRes, Factory factory) {
+		sFactories.put(layoutRes, factory);
+	}
+
+	/**
+	 * Removes the code which builds a layout, so it is inflated from XML again
+	 * @param layoutRes the resource of the layout
+	 */
+	public static synchronized void unregister(int layoutRes) {
+		sFactories.remove(layoutRes);
+	}
+
+	/**
+	 * Gets if the registered factories are used
+	 * @return if compiled layouts are used
+	 */
+	public static synchronized boolean isEnabled() {
+		return sEnabled;
+	}
+
+	/**
+	 * Sets if the registered factories will be used. When disabled, which is the default, every layout is inflated from XML.
+	 * @param enabled will compiled layouts be used
+	 */
+	public static synchronized void setEnabled(boolean enabled) {
+		sEnabled = enabled;
+	}
+
+	/**
+	 * Builds a layout with its registered factory, or inflates it if it has none. The icons of the default layouts come from {@link StateIconCache} either way.
+	 * @param inflater the inflater used for layouts without a factory
+	 * @param layoutRes the resource of the layout
+	 * @return the root of the layout
+	 */
+	public static View inflate(LayoutInflater inflater, int layoutRes) {
+		Factory factory;
+		synchronized (CompiledLayouts.class) {
+			factory = sEnabled ? sFactories.get(layoutRes) : null;
+		}
+		if (factory != null) return factory.create(inflater.getContext());
+		View view = inflater.inflate(layoutRes, null);
+		// the default layouts inflated from XML share the cached icons too
+		StateIconCache.useCachedIcons(view, layoutRes);
+		return view;
+	}
+
+	// ---------------------------
+	// default layouts
+	// ---------------------------
+
+	// res/layout/view_empty.xml and res/layout/view_error.xml
+	private static class MessageLayoutFactory implements Factory {
+
+		private final int mMessageRes;
+		private final int mIconRes;
+		private final int mButtonId;
+		private final int mButtonTextRes;
+
+		MessageLayoutFactory(int messageRes, int iconRes, int buttonId, int buttonTextRes) {
+			mMessageRes = messageRes;
+			mIconRes = iconRes;
+			mButtonId = buttonId;
+			mButtonTextRes = buttonTextRes;
+		}
+
+		@Override
+		public View create(Context context) {
+			LinearLayout root = createRoot(context);
+
+			TextView message = new TextView(context);
+			message.setId(R.id.textViewMessage);
+			message.setText(mMessageRes);
+			message.setCompoundDrawablesWithIntrinsicBounds(null, getIcon(context, mIconRes), null, null);
+			setTextAppearanceMedium(context, message);
+			message.setGravity(Gravity.CENTER_HORIZONTAL);
+			LinearLayout.LayoutParams messageParams = new LinearLayout.LayoutParams(ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT);
+			messageParams.topMargin = dp(context, 16);
+			root.addView(message, messageParams);
+
+			Button button = new Button(context);
+			button.setId(mButtonId);
+			button.setText(mButtonTextRes);
+			LinearLayout.LayoutParams buttonParams = new LinearLayout.LayoutParams(ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT);
+			buttonParams.gravity = Gravity.CENTER_HORIZONTAL;
+			buttonParams.topMargin = dp(context, 16);
+			root.addView(button, buttonParams);
+			return root;
+		}
+	}
+
+	// res/layout/view_loading.xml
+	private static class LoadingLayoutFactory implements Factory {
+
+		@Override
+		public View create(Context context) {
+			LinearLayout root = createRoot(context);
+
+			ImageView image = new ImageView(context);
+			image.setId(R.id.imageViewLoading);
+			image.setImageDrawable(getIcon(context, R.drawable.ic_loading));
+			LinearLayout.LayoutParams imageParams = new LinearLayout.LayoutParams(ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT);
+			imageParams.gravity = Gravity.CENTER_HORIZONTAL;
+			root.addView(image, imageParams);
+
+			TextView message = new TextView(context);
+			message.setId(R.id.textViewMessage);
+			message.setText(R.string.loading_message);
+			setTextAppearanceMedium(context, message);
+			message.setGravity(Gravity.CENTER_HORIZONTAL);
+			LinearLayout.LayoutParams messageParams = new LinearLayout.LayoutParams(ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT);
+			messageParams.gravity = Gravity.CENTER_HORIZONTAL;
+			messageParams.topMargin = dp(context, 8);
+			root.addView(message, messageParams);
+
+			Button button = new Button(context);
+			button.setId(R.id.buttonLoading);
+			button.setText(R.string.loading_button);
+			LinearLayout.LayoutParams buttonParams = new LinearLayout.LayoutParams(ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT);
+			buttonParams.gravity = Gravity.CENTER_HORIZONTAL;
+			root.addView(button, buttonParams);
+			return root;
+		}
+	}
+
+	// ---------------------------
+	// private methods
+	// ---------------------------
+
+	private static LinearLayout createRoot(Context context) {
+		LinearLayout root = new LinearLayout(context);
+		root.setOrientation(LinearLayout.VERTICAL);
+		int padding = dp(context, 16);
+		root.setPadding(padding, padding, padding, padding);
+		return root;
+	}
+
+	// the default icons are shared by all the layouts and decoded at the size they are shown at
+	private static Drawable getIcon(Context context, int drawableRes) {
+		Resources resources = context.getResources();
+		return StateIconCache.getDefault(context).get(resources, drawableRes, StateIconCache.getIconSize(resources));
+	}
+
+	private static void setTextAppearanceMedium(Context context, TextView textView) {
+		TypedValue value = new TypedValue();
+		if (context.getTheme().resolveAttribute(android.R.attr.textAppearanceMedium, value, true)) {
+			textView.setTextAppearance(context, value.resourceId);
+		}
+	}
+
+	private static int dp(Context context, int dp) {
+		return Math.round(dp * context.getResources().getDisplayMetrics().density);
+	}
+}
@@ -2,19 +2,40 @@ package com.kanak.emptylayout;
 
 import com.kanak.emptylayout.R;
 
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicReference;
+
 import android.app.Activity;
+import android.app.Application;
 import android.content.Context;
+import android.content.ContextWrapper;
+import android.content.res.Configuration;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.os.Trace;
+import android.text.TextUtils;
+import android.util.SparseArray;
+import android.view.Choreographer;
+import android.view.Gravity;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
 import android.view.animation.Animation;
 import android.view.animation.AnimationUtils;
 import android.view.animation.LinearInterpolator;
 import android.view.animation.RotateAnimation;
+import android.widget.AbsListView;
+import android.widget.FrameLayout;
+import android.widget.HeaderViewListAdapter;
+import android.widget.LinearLayout;
+import android.widget.ListAdapter;
 import android.widget.ListView;
 import android.widget.RelativeLayout;
 import android.widget.RelativeLayout.LayoutParams;
-import android.widget.TextView;
 
 public class EmptyLayout {
 
@@ -23,12 +44,174 @@ public class EmptyLayout {
 	private ViewGroup mEmptyView;
 	private ViewGroup mErrorView;
 	private Animation mLoadingAnimation;
+	private int mLoadingAnimationRes;
+	private EmptyLayoutConfig mConfig;
 	private ListView mListView;
 	private int mErrorMessageViewId;
 	private int mEmptyMessageViewId;
 	private int mLoadingMessageViewId;
 	private LayoutInflater mInflater;
 	private boolean mViewsAdded;
+	private StateHost mHost;
+	private boolean mContentEmpty = true;
+	private boolean mAppliedContentEmpty;
+	private StateViewPool mStateViewPool;
+	private int mStateViewTheme;
+	private int mLoadingViewRes;
+	private int mEmptyViewRes;
+	private int mErrorViewRes;
+	private Animation mRotateAnimation;
+	private boolean mLoadingAnimationRequested;
+	private boolean mLoadingAnimationRunning;
+	private View mWatchedLoadingView;
+	private Object mLoadingAttachListener;
+	private final ViewTreeObserver.OnPreDrawListener mLoadingPreDrawListener = new ViewTreeObserver.OnPreDrawListener() {
+		@Override
+		public boolean onPreDraw() {
+			// pauses the animation when the layout or any of its parents gets hidden, e.g. when the activity is stopped
+			updateLoadingAnimation();
+			return true;
+		}
+	};
+	private StateView mStateView;
+	private SkeletonView mSkeletonView;
+	private StateTransitions mStateTransitions;
+	// read by the post...() methods on any thread
+	private volatile Metrics mMetrics;
+	private long mChangeRequestedAt;
+	private int mShownType;
+	private long mShownSince;
+	private StateViewHolder mLoadingViewHolder;
+	private StateViewHolder mEmptyViewHolder;
+	private StateViewHolder mErrorViewHolder;
+	private final Handler mHandler = new Handler(Looper.getMainLooper());
+	private Object mFrameCallback;
+	private boolean mChangeScheduled;
+	private int mAppliedEmptyType;
+	private CharSequence mAppliedMessage;
+	private boolean mStateViewsDirty;
+	private int mCoalescedChangeCount;
+	private int mSkippedChangeCount;
+	private final Runnable mApplyChangeRunnable = new Runnable() {
+		@Override
+		public void run() {
+			applyScheduledChange();
+		}
+	};
+	private long mLoadingRequestedAt;
+	private volatile boolean mReleased;
+	private SparseArray<ViewGroup> mRetainedViews;
+	private Application mBoundApplication;
+	private Object mLifecycleCallbacks;
+	private final Runnable mDelayedLoadingRunnable = new Runnable() {
+		@Override
+		public void run() {
+			mLoadingRequestedAt = 0;
+			if (mEmptyType == TYPE_LOADING && isHostEmpty()) scheduleEmptyTypeChange();
+		}
+	};
+	private final Runnable mMinShowTimeRunnable = new Runnable() {
+		@Override
+		public void run() {
+			scheduleEmptyTypeChange();
+		}
+	};
+	private final StateHost.Listener mHostListener = new StateHost.Listener() {
+		@Override
+		public void onItemCountChanged() {
+			// the layouts are only touched when the content becomes empty or stops being empty
+			if (isHostEmpty() != mContentEmpty) requestEmptyTypeChange();
+			// a new page has arrived, the next one may be asked for again
+			if (mLoadMoreItemCount >= 0 && mHost != null && mHost.getItemCount() != mLoadMoreItemCount) {
+				mLoadMoreItemCount = -1;
+				if (mFooterType == TYPE_LOADING) hideFooter();
+			}
+		}
+	};
+	private StateSource mStateSource;
+	private final StateSource.Listener mSourceListener = new StateSource.Listener() {
+		@Override
+		public void onStateChanged(int state, CharSequence message) {
+			if (state == StateSource.STATE_CONTENT) {
+				// the content shows up as soon as the adapter has the items, and the empty layout if they are removed again
+				mEmptyType = TYPE_EMPTY;
+				if (!isHostEmpty()) requestEmptyTypeChange();
+				return;
+			}
+			if (state == TYPE_ERROR && message != null) mErrorMessage = message;
+			mEmptyType = state;
+			requestEmptyTypeChange();
+		}
+	};
+	private OnRetryListener mOnRetryListener;
+	private RetryPolicy mRetryPolicy = RetryPolicy.DEFAULT;
+	private int mRetryAttempt;
+	private boolean mRetryInFlight;
+	private boolean mRetryAutomatic;
+	private long mRetryStartedAt;
+	private long mRetryAllowedAt;
+	private long mRetryPendingAt;
+	private boolean mRetryPendingAutomatic;
+	private CharSequence mRetryCountdownMessage;
+	private int mIgnoredRetryCount;
+	private final Runnable mRetryCountdownRunnable = new Runnable() {
+		@Override
+		public void run() {
+			updateRetryCountdown();
+		}
+	};
+	private final View.OnClickListener mRetryClickListener = new View.OnClickListener() {
+		@Override
+		public void onClick(View v) {
+			retry();
+		}
+	};
+	private final AtomicReference<PostedState> mPostedState = new AtomicReference<PostedState>();
+	private final Runnable mApplyPostedStateRunnable = new Runnable() {
+		@Override
+		public void run() {
+			applyPostedState();
+		}
+	};
+	private ListView mFooterListView;
+	private FrameLayout mFooterContainer;
+	private ViewGroup mFooterLoadingView;
+	private ViewGroup mFooterErrorView;
+	private StateViewHolder mFooterLoadingViewHolder;
+	private StateViewHolder mFooterErrorViewHolder;
+	private Animation mFooterAnimation;
+	private int mFooterType;
+	private OnLoadMoreListener mOnLoadMoreListener;
+	private int mLoadMoreItemCount = -1;
+	private boolean mLoadMorePosted;
+	private boolean mHasMore = true;
+	private final ViewTreeObserver.OnScrollChangedListener mFooterScrollListener = new ViewTreeObserver.OnScrollChangedListener() {
+		@Override
+		public void onScrollChanged() {
+			checkPrefetchDistance();
+		}
+	};
+	private final ViewTreeObserver.OnGlobalLayoutListener mFooterLayoutListener = new ViewTreeObserver.OnGlobalLayoutListener() {
+		@Override
+		public void onGlobalLayout() {
+			// a short page may not fill the list, so check without waiting for a scroll
+			checkPrefetchDistance();
+		}
+	};
+	private final Runnable mLoadMoreRunnable = new Runnable() {
+		@Override
+		public void run() {
+			mLoadMorePosted = false;
+			loadMore();
+		}
+	};
+	private final View.OnClickListener mFooterRetryListener = new View.OnClickListener() {
+		@Override
+		public void onClick(View v) {
+			if (mOnLoadMoreListener != null) loadMore();
+			else if (mErrorButtonClickListener != null) mErrorButtonClickListener.onClick(v);
+		}
+	};
 	private int mLoadingAnimationViewId;	
 	private View.OnClickListener mLoadingButtonClickListener;
     private View.OnClickListener mEmptyButtonClickListener;
@@ -49,20 +232,158 @@ public class EmptyLayout {
 	 * The error state
 	 */
 	public final static int TYPE_ERROR = 3;	
+	
+	private static boolean sTracingEnabled = false;
+	private static volatile EmptyLayoutConfig sDefaultConfig;
+	
+	private static final String STATE_EMPTY_TYPE = "com.kanak.emptylayout.EmptyLayout.emptyType";
+	private static final String STATE_EMPTY_MESSAGE = "com.kanak.emptylayout.EmptyLayout.emptyMessage";
+	private static final String STATE_LOADING_MESSAGE = "com.kanak.emptylayout.EmptyLayout.loadingMessage";
+	private static final String STATE_ERROR_MESSAGE = "com.kanak.emptylayout.EmptyLayout.errorMessage";
+	private static final String STATE_SHOW_EMPTY_BUTTON = "com.kanak.emptylayout.EmptyLayout.showEmptyButton";
+	private static final String STATE_SHOW_LOADING_BUTTON = "com.kanak.emptylayout.EmptyLayout.showLoadingButton";
+	private static final String STATE_SHOW_ERROR_BUTTON = "com.kanak.emptylayout.EmptyLayout.showErrorButton";
+	
+	// configuration changes which don't change the resources of the state layouts. Orientation and size changes can select other resources,
+	// e.g. the values-sw600dp and values-sw720dp-land dimensions of the default layouts, so the layouts are inflated again after them.
+	private static final int RETAINABLE_CONFIG_CHANGES = Configuration.CONFIG_KEYBOARD_HIDDEN | Configuration.CONFIG_KEYBOARD | Configuration.CONFIG_NAVIGATION;
+	
+	// ---------------------------
+	// interfaces
+	// ---------------------------
+	/**
+	 * Receives timings of an EmptyLayout, e.g. to report how long users wait in the loading state. No timings are taken while no metrics are set.
+	 * Extend {@link SimpleMetrics} to only receive some of the timings.
+	 */
+	public interface Metrics {
+		/**
+		 * Called when a state starts being shown
+		 * @param emptyLayout the empty layout
+		 * @param emptyType loading or empty or error
+		 * @param uptimeMillis the time the state was shown, in {@link SystemClock#uptimeMillis()}
+		 */
+		void onStateEnter(EmptyLayout emptyLayout, int emptyType, long uptimeMillis);
+		
+		/**
+		 * Called when a state stops being shown, because another state is shown or the list is no longer empty
+		 * @param emptyLayout the empty layout
+		 * @param emptyType loading or empty or error
+		 * @param uptimeMillis the time the state was hidden, in {@link SystemClock#uptimeMillis()}
+		 * @param durationMillis how long the state was shown
+		 */
+		void onStateExit(EmptyLayout emptyLayout, int emptyType, long uptimeMillis, long durationMillis);
+		
+		/**
+		 * Called when a state layout was inflated or taken from a pool
+		 * @param emptyLayout the empty layout
+		 * @param layoutRes the resource of the layout
+		 * @param durationNanos how long it took to get the layout
+		 */
+		void onLayoutInflated(EmptyLayout emptyLayout, int layoutRes, long durationNanos);
+		
+		/**
+		 * Called when a state change was applied to the layouts
+		 * @param emptyLayout the empty layout
+		 * @param emptyType loading or empty or error
+		 * @param latencyNanos how long the change waited after it was requested, when it was coalesced or posted from another thread
+		 * @param durationNanos how long it took to apply the change
+		 */
+		void onStateChangeApplied(EmptyLayout emptyLayout, int emptyType, long latencyNanos, long durationNanos);
+	}
+
+	/**
+	 * {@link Metrics} which also receive the outcome of the retries made by the {@link OnRetryListener}. Set it with {@link EmptyLayout#setMetrics(Metrics)}.
+	 */
+	public interface RetryMetrics extends Metrics {
+		/**
+		 * Called when a retry made by the {@link OnRetryListener} has finished, i.e. when another state than loading is shown or the list gets items
+		 * @param emptyLayout the empty layout
+		 * @param attempt the number of the retry since the list was last loaded, starting at 1
+		 * @param automatic if the retry was made without the error button being tapped
+		 * @param succeeded false if the error state was shown again
+		 * @param durationMillis how long the retry took
+		 */
+		void onRetryFinished(EmptyLayout emptyLayout, int attempt, boolean automatic, boolean succeeded, long durationMillis);
+	}
+
+	/**
+	 * Reloads the list when the error button is tapped or an automatic retry is due, see {@link EmptyLayout#setOnRetryListener(OnRetryListener)}
+	 */
+	public interface OnRetryListener {
+		/**
+		 * Called when the list should be loaded again. The loading state is shown before this is called.
+		 * Show the error state again if the list could not be loaded, any other state or new items of the list count as success.
+		 * @param emptyLayout the empty layout
+		 * @param attempt the number of the retry since the list was last loaded, starting at 1
+		 */
+		void onRetry(EmptyLayout emptyLayout, int attempt);
+	}
+	
+	/**
+	 * Asks for the next page of a paginated list
+	 */
+	public interface OnLoadMoreListener {
+		/**
+		 * Called when the user has scrolled within the prefetch distance of the end of the list. The loading footer is shown before this is called.
+		 * Add the items of the page to the adapter when they arrive and call {@link EmptyLayout#onLoadMoreFinished(boolean)}, or call
+		 * {@link EmptyLayout#showFooterError()} if they could not be loaded. Until the item count changes the next page is not asked for again,
+		 * so an empty last page must be reported with {@code onLoadMoreFinished(false)} to hide the loading footer.
+		 * @param emptyLayout the empty layout
+		 */
+		void onLoadMore(EmptyLayout emptyLayout);
+	}
+	
+	/**
+	 * A {@link Metrics} which ignores all the timings
+	 */
+	public static class SimpleMetrics implements RetryMetrics {
+		@Override
+		public void onStateEnter(EmptyLayout emptyLayout, int emptyType, long uptimeMillis) {
+		}
+
+		@Override
+		public void onStateExit(EmptyLayout emptyLayout, int emptyType, long uptimeMillis, long durationMillis) {
+		}
+
+		@Override
+		public void onLayoutInflated(EmptyLayout emptyLayout, int layoutRes, long durationNanos) {
+		}
+
+		@Override
+		public void onStateChangeApplied(EmptyLayout emptyLayout, int emptyType, long latencyNanos, long durationNanos) {
+		}
+
+		@Override
+		public void onRetryFinished(EmptyLayout emptyLayout, int attempt, boolean automatic, boolean succeeded, long durationMillis) {
+		}
+	}
 
 	// ---------------------------
 	// default values
 	// ---------------------------
 	private int mEmptyType = TYPE_LOADING;
-	private String mErrorMessage = "Oops! Something wrong happened";
-	private String mEmptyMessage = "No items yet";
-	private String mLoadingMessage = "Please wait";
+	private CharSequence mErrorMessage;
+	private CharSequence mEmptyMessage;
+	private CharSequence mLoadingMessage;
 	private int mLoadingViewButtonId = R.id.buttonLoading;
 	private int mErrorViewButtonId = R.id.buttonError;
 	private int mEmptyViewButtonId = R.id.buttonEmpty;
 	private boolean mShowEmptyButton = true;
 	private boolean mShowLoadingButton = true;
 	private boolean mShowErrorButton = true;
+	private boolean mLazyInflation = false;
+	private boolean mCoalesceChanges = false;
+	private boolean mFlatRendering = false;
+	private boolean mPrecomputeMessages = false;
+	private boolean mHardwareLoadingAnimation = false;
+	private int mPrefetchDistance = 5;
+	private long mLoadingShowDelay = 0;
+	private long mLoadingMinShowTime = 0;
+	private boolean mSkeletonLoading = false;
+	private int mSkeletonRowLayoutRes = 0;
+	private int mSkeletonRowCount = 0;
+	private boolean mAnimateTransitions = false;
+	private long mTransitionDuration = 200;
 
 	// ---------------------------
 	// getters and setters
@@ -80,7 +401,10 @@ public class EmptyLayout {
 	 * @param loadingView the layout to be shown when the list is loading
 	 */
 	public void setLoadingView(ViewGroup loadingView) {
+		mStateViewsDirty = true;
 		this.mLoadingView = loadingView;
+		this.mLoadingViewRes = 0;
+		this.mLoadingViewHolder = null;
 	}
 	
 	/**
@@ -88,7 +412,10 @@ public class EmptyLayout {
 	 * @param res the resource of the layout to be shown when the list is loading
 	 */
 	public void setLoadingViewRes(int res){
-		this.mLoadingView = (ViewGroup) mInflater.inflate(res, null);
+		mStateViewsDirty = true;
+		this.mLoadingView = inflateStateView(res);
+		this.mLoadingViewRes = res;
+		this.mLoadingViewHolder = null;
 	}
 	
 	/**
@@ -104,7 +431,10 @@ public class EmptyLayout {
 	 * @param emptyView the layout to be shown when no items are available to load in the list
 	 */
 	public void setEmptyView(ViewGroup emptyView) {
+		mStateViewsDirty = true;
 		this.mEmptyView = emptyView;
+		this.mEmptyViewRes = 0;
+		this.mEmptyViewHolder = null;
 	}
 	
 	/**
@@ -112,7 +442,10 @@ public class EmptyLayout {
 	 * @param res the resource of the layout to be shown when no items are available to load in the list
 	 */
 	public void setEmptyViewRes(int res){
-		this.mEmptyView = (ViewGroup) mInflater.inflate(res, null);
+		mStateViewsDirty = true;
+		this.mEmptyView = inflateStateView(res);
+		this.mEmptyViewRes = res;
+		this.mEmptyViewHolder = null;
 	}
 	
 	/**
@@ -128,7 +461,10 @@ public class EmptyLayout {
 	 * @param errorView the layout to be shown when list could not be loaded due to some error
 	 */
 	public void setErrorView(ViewGroup errorView) {
+		mStateViewsDirty = true;
 		this.mErrorView = errorView;
+		this.mErrorViewRes = 0;
+		this.mErrorViewHolder = null;
 	}
 	
 	/**
@@ -136,7 +472,10 @@ public class EmptyLayout {
 	 * @param res the resource of the layout to be shown when list could not be loaded due to some error
 	 */
 	public void setErrorViewRes(int res){
-		this.mErrorView = (ViewGroup) mInflater.inflate(res, null);
+		mStateViewsDirty = true;
+		this.mErrorView = inflateStateView(res);
+		this.mErrorViewRes = res;
+		this.mErrorViewHolder = null;
 	}
 	
 	/**
@@ -144,6 +483,8 @@ public class EmptyLayout {
 	 * @return the loading animation
 	 */
 	public Animation getLoadingAnimation() {
+		// an animation set by its resource is only loaded once it is needed
+		if (mLoadingAnimation == null && mLoadingAnimationRes != 0) mLoadingAnimation = AnimationUtils.loadAnimation(mContext, mLoadingAnimationRes);
 		return mLoadingAnimation;
 	}
 	
@@ -152,15 +493,19 @@ public class EmptyLayout {
 	 * @param animation the animation to play when the list is being loaded
 	 */
 	public void setLoadingAnimation(Animation animation) {
+		mStateViewsDirty = true;
 		this.mLoadingAnimation = animation;
+		this.mLoadingAnimationRes = 0;
 	}
 	
 	/**
-	 * Sets the resource of loading animation
+	 * Sets the resource of loading animation. The animation is loaded when the loading state is shown for the first time.
 	 * @param animationResource the animation resource to play when the list is being loaded
 	 */
 	public void setLoadingAnimationRes(int animationResource) {
-		mLoadingAnimation = AnimationUtils.loadAnimation(mContext, animationResource);
+		mStateViewsDirty = true;
+		mLoadingAnimation = null;
+		mLoadingAnimationRes = animationResource;
 	}
 	
 	/**
@@ -176,7 +521,54 @@ public class EmptyLayout {
 	 * @param listView
 	 */
 	public void setListView(ListView listView) {
-		this.mListView = listView;
+		setHost(listView != null ? StateHost.of(listView) : null);
+	}
+	
+	/**
+	 * Gets the view whose content is replaced by the state layouts while it is empty
+	 * @return the host
+	 */
+	public StateHost getHost() {
+		return mHost;
+	}
+	
+	/**
+	 * Sets the view whose content will be replaced by the state layouts while it is empty, e.g. {@link StateHost#of(android.widget.AdapterView)} or {@link StateHost#of(ViewGroup)}
+	 * @param host the host
+	 */
+	public void setHost(StateHost host) {
+		if (mHost == host) return;
+		if (mViewsAdded) recycleStateViews();
+		detachFooter();
+		this.mHost = host;
+		this.mListView = host != null && host.getContentView() instanceof ListView ? (ListView) host.getContentView() : null;
+		if (mOnLoadMoreListener != null) attachFooter();
+	}
+	
+	/**
+	 * Gets the source the state is derived from
+	 * @return the source or null
+	 */
+	public StateSource getStateSource() {
+		return mStateSource;
+	}
+	
+	/**
+	 * Shows the state derived from the loads reported to a source, instead of calling the <code>show...()</code> methods. A source drives one empty layout at a time.
+	 * @param stateSource the source or null to stop following it
+	 */
+	public void setStateSource(StateSource stateSource) {
+		if (mStateSource == stateSource) return;
+		if (mStateSource != null) mStateSource.unbind(mSourceListener);
+		this.mStateSource = stateSource;
+		if (stateSource != null && !mReleased) stateSource.bind(mSourceListener);
+	}
+	
+	/**
+	 * Checks the number of items of the host again. Only needed for hosts which can't observe their items, such as {@link StateHost#of(ViewGroup)}.
+	 */
+	public void notifyContentChanged() {
+		mHostListener.onItemCountChanged();
 	}
 	
 	/**
@@ -193,7 +585,7 @@ public class EmptyLayout {
 	 */
 	public void setEmptyType(int emptyType) {
 		this.mEmptyType = emptyType;
-		changeEmptyType();
+		requestEmptyTypeChange();
 	}
 	
 	/**
@@ -201,6 +593,14 @@ public class EmptyLayout {
 	 * @return the error message 
 	 */
 	public String getErrorMessage() {
+		return mErrorMessage != null ? mErrorMessage.toString() : null;
+	}
+	
+	/**
+	 * Gets the message which is shown when the list could not be loaded due to some error, keeping its styling
+	 * @return the error message
+	 */
+	public CharSequence getErrorMessageText() {
 		return mErrorMessage;
 	}
 	
@@ -210,8 +610,19 @@ public class EmptyLayout {
 	 * @param messageViewId the id of the text view within the error layout whose text will be changed into this message
 	 */
 	public void setErrorMessage(String errorMessage, int messageViewId) {
+		setErrorMessage((CharSequence) errorMessage, messageViewId);
+	}
+	
+	/**
+	 * Sets the message to be shown when the list could not be loaded due to some error
+	 * @param errorMessage the error message
+	 * @param messageViewId the id of the text view within the error layout whose text will be changed into this message
+	 */
+	public void setErrorMessage(CharSequence errorMessage, int messageViewId) {
+		mStateViewsDirty = true;
 		this.mErrorMessage = errorMessage;
 		this.mErrorMessageViewId = messageViewId;
+		precomputeMessage(errorMessage);
 	}
 	
 	/**
@@ -219,7 +630,25 @@ public class EmptyLayout {
 	 * @param errorMessage the error message
 	 */
 	public void setErrorMessage(String errorMessage) {
+		setErrorMessage((CharSequence) errorMessage);
+	}
+	
+	/**
+	 * Sets the message to be shown when the list could not be loaded due to some error
+	 * @param errorMessage the error message
+	 */
+	public void setErrorMessage(CharSequence errorMessage) {
+		mStateViewsDirty = true;
 		this.mErrorMessage = errorMessage;
+		precomputeMessage(errorMessage);
+	}
+	
+	/**
+	 * Sets the message to be shown when the list could not be loaded due to some error
+	 * @param messageRes the string resource of the message
+	 */
+	public void setErrorMessage(int messageRes) {
+		setErrorMessage(mContext.getText(messageRes));
 	}
 	
 	/**
@@ -227,6 +656,14 @@ public class EmptyLayout {
 	 * @return the message which will be shown when the list will be empty for not having any item to display
 	 */
 	public String getEmptyMessage() {
+		return mEmptyMessage != null ? mEmptyMessage.toString() : null;
+	}
+	
+	/**
+	 * Gets the message which will be shown when the list will be empty for not having any item to display, keeping its styling
+	 * @return the empty message
+	 */
+	public CharSequence getEmptyMessageText() {
 		return mEmptyMessage;
 	}
 	
@@ -236,8 +673,19 @@ public class EmptyLayout {
 	 * @param messageId the id of the text view within the empty layout whose text will be changed into this message
 	 */
 	public void setEmptyMessage(String emptyMessage, int messageViewId) {
+		setEmptyMessage((CharSequence) emptyMessage, messageViewId);
+	}
+	
+	/**
+	 * Sets the message to be shown when the list will be empty for not having any item to display
+	 * @param emptyMessage the message
+	 * @param messageId the id of the text view within the empty layout whose text will be changed into this message
+	 */
+	public void setEmptyMessage(CharSequence emptyMessage, int messageViewId) {
+		mStateViewsDirty = true;
 		this.mEmptyMessage = emptyMessage;
 		this.mEmptyMessageViewId = messageViewId;
+		precomputeMessage(emptyMessage);
 	}
 	
 	/**
@@ -245,7 +693,25 @@ public class EmptyLayout {
 	 * @param emptyMessage the message
 	 */
 	public void setEmptyMessage(String emptyMessage) {
+		setEmptyMessage((CharSequence) emptyMessage);
+	}
+	
+	/**
+	 * Sets the message to be shown when the list will be empty for not having any item to display
+	 * @param emptyMessage the message
+	 */
+	public void setEmptyMessage(CharSequence emptyMessage) {
+		mStateViewsDirty = true;
 		this.mEmptyMessage = emptyMessage;
+		precomputeMessage(emptyMessage);
+	}
+	
+	/**
+	 * Sets the message to be shown when the list will be empty for not having any item to display
+	 * @param messageRes the string resource of the message
+	 */
+	public void setEmptyMessage(int messageRes) {
+		setEmptyMessage(mContext.getText(messageRes));
 	}
 	
 	/**
@@ -253,6 +719,14 @@ public class EmptyLayout {
 	 * @return
 	 */
 	public String getLoadingMessage() {
+		return mLoadingMessage != null ? mLoadingMessage.toString() : null;
+	}
+	
+	/**
+	 * Gets the message which will be shown when the list is being loaded, keeping its styling
+	 * @return the loading message
+	 */
+	public CharSequence getLoadingMessageText() {
 		return mLoadingMessage;
 	}
 	
@@ -262,8 +736,19 @@ public class EmptyLayout {
 	 * @param messageViewId the id of the text view within the loading layout whose text will be changed into this message
 	 */
 	public void setLoadingMessage(String loadingMessage, int messageViewId) {
+		setLoadingMessage((CharSequence) loadingMessage, messageViewId);
+	}
+	
+	/**
+	 * Sets the message to be shown when the list is being loaded
+	 * @param loadingMessage the message
+	 * @param messageViewId the id of the text view within the loading layout whose text will be changed into this message
+	 */
+	public void setLoadingMessage(CharSequence loadingMessage, int messageViewId) {
+		mStateViewsDirty = true;
 		this.mLoadingMessage = loadingMessage;
 		this.mLoadingMessageViewId = messageViewId;
+		precomputeMessage(loadingMessage);
 	}
 	
 	/**
@@ -271,7 +756,25 @@ public class EmptyLayout {
 	 * @param loadingMessage the message
 	 */
 	public void setLoadingMessage(String loadingMessage) {
+		setLoadingMessage((CharSequence) loadingMessage);
+	}
+	
+	/**
+	 * Sets the message to be shown when the list is being loaded
+	 * @param loadingMessage the message
+	 */
+	public void setLoadingMessage(CharSequence loadingMessage) {
+		mStateViewsDirty = true;
 		this.mLoadingMessage = loadingMessage;
+		precomputeMessage(loadingMessage);
+	}
+	
+	/**
+	 * Sets the message to be shown when the list is being loaded
+	 * @param messageRes the string resource of the message
+	 */
+	public void setLoadingMessage(int messageRes) {
+		setLoadingMessage(mContext.getText(messageRes));
 	}
 	
 	/**
@@ -287,6 +790,7 @@ public class EmptyLayout {
 	 * @param loadingAnimationViewId the id of the view
 	 */
 	public void setLoadingAnimationViewId(int loadingAnimationViewId) {
+		mStateViewsDirty = true;
 		this.mLoadingAnimationViewId = loadingAnimationViewId;
 	}	
 
@@ -303,6 +807,7 @@ public class EmptyLayout {
      * @param loadingButtonClickListener OnClickListener Object
      */
     public void setLoadingButtonClickListener(View.OnClickListener loadingButtonClickListener) {
+        mStateViewsDirty = true;
         this.mLoadingButtonClickListener = loadingButtonClickListener;
     }
     
@@ -319,6 +824,7 @@ public class EmptyLayout {
      * @param emptyButtonClickListener OnClickListener Object
      */
     public void setEmptyButtonClickListener(View.OnClickListener emptyButtonClickListener) {
+        mStateViewsDirty = true;
         this.mEmptyButtonClickListener = emptyButtonClickListener;
     }
     
@@ -335,9 +841,73 @@ public class EmptyLayout {
      * @param errorButtonClickListener OnClickListener Object
      */
     public void setErrorButtonClickListener(View.OnClickListener errorButtonClickListener) {
+        mStateViewsDirty = true;
         this.mErrorButtonClickListener = errorButtonClickListener;
     }
 
+	/**
+	 * Gets the listener which reloads the list when the error button is tapped
+	 * @return the listener or null
+	 */
+	public OnRetryListener getOnRetryListener() {
+		return mOnRetryListener;
+	}
+
+	/**
+	 * Sets the listener which will reload the list when the error button is tapped, instead of the error button click listener.
+	 * Only one retry is made at a time, and retries are spaced out by the {@link #setRetryPolicy(RetryPolicy) retry policy}. Set it before the error layout is inflated.
+	 * @param onRetryListener the listener or null to use the error button click listener
+	 */
+	public void setOnRetryListener(OnRetryListener onRetryListener) {
+		mStateViewsDirty = true;
+		if (onRetryListener == null) {
+			cancelRetry();
+			mRetryInFlight = false;
+		}
+		this.mOnRetryListener = onRetryListener;
+	}
+
+	/**
+	 * Gets how the retries are spaced out
+	 * @return the retry policy
+	 */
+	public RetryPolicy getRetryPolicy() {
+		return mRetryPolicy;
+	}
+
+	/**
+	 * Sets how the retries will be spaced out and how many of them are made automatically
+	 * @param retryPolicy the retry policy, by default {@link RetryPolicy#DEFAULT}
+	 */
+	public void setRetryPolicy(RetryPolicy retryPolicy) {
+		if (retryPolicy == null) throw new IllegalArgumentException("retryPolicy == null");
+		this.mRetryPolicy = retryPolicy;
+	}
+
+	/**
+	 * Gets the number of the last retry since the list was last loaded
+	 * @return the number of retries, 0 if the list has not failed to load again
+	 */
+	public int getRetryAttempt() {
+		return mRetryAttempt;
+	}
+
+	/**
+	 * Gets if a retry has been made and the list has not been loaded or failed yet
+	 * @return if a retry is in flight
+	 */
+	public boolean isRetryInFlight() {
+		return mRetryInFlight;
+	}
+
+	/**
+	 * Gets how many taps on the error button were ignored because a retry was already in flight or counting down
+	 * @return the number of ignored retries
+	 */
+	public int getIgnoredRetryCount() {
+		return mIgnoredRetryCount;
+	}
+
     /**
      * Gets if a button is shown in the empty view
      * @return if a button is shown in the empty view
@@ -351,6 +921,7 @@ public class EmptyLayout {
      * @param showEmptyButton will a button be shown in the empty view
      */
 	public void setShowEmptyButton(boolean showEmptyButton) {
+		mStateViewsDirty = true;
 		this.mShowEmptyButton = showEmptyButton;
 	}
 
@@ -367,6 +938,7 @@ public class EmptyLayout {
      * @param showEmptyButton will a button be shown in the loading view
      */
 	public void setShowLoadingButton(boolean showLoadingButton) {
+		mStateViewsDirty = true;
 		this.mShowLoadingButton = showLoadingButton;
 	}
 
@@ -383,6 +955,7 @@ public class EmptyLayout {
      * @param showEmptyButton will a button be shown in the error view
      */
 	public void setShowErrorButton(boolean showErrorButton) {
+		mStateViewsDirty = true;
 		this.mShowErrorButton = showErrorButton;
 	}
     
@@ -399,6 +972,7 @@ public class EmptyLayout {
 	 * @param loadingViewButtonId the ID of the button in the loading view
 	 */
 	public void setLoadingViewButtonId(int loadingViewButtonId) {
+		mStateViewsDirty = true;
 		this.mLoadingViewButtonId = loadingViewButtonId;
 	}
 
@@ -415,6 +989,7 @@ public class EmptyLayout {
 	 * @param errorViewButtonId the ID of the button in the error view
 	 */
 	public void setErrorViewButtonId(int errorViewButtonId) {
+		mStateViewsDirty = true;
 		this.mErrorViewButtonId = errorViewButtonId;
 	}
 
@@ -431,149 +1006,1378 @@ public class EmptyLayout {
 	 * @param emptyViewButtonId the ID of the button in the empty view
 	 */
 	public void setEmptyViewButtonId(int emptyViewButtonId) {
+		mStateViewsDirty = true;
 		this.mEmptyViewButtonId = emptyViewButtonId;
 	}
 
-    
-
+	/**
+	 * Gets if the state layouts are inflated only when they are shown for the first time
+	 * @return if the state layouts are inflated lazily
+	 */
+	public boolean isLazyInflation() {
+		return mLazyInflation;
+	}
 
-    
+	/**
+	 * Sets if the state layouts will be inflated only when they are shown for the first time. By default all three layouts are inflated on the first state change.
+	 * @param lazyInflation will the state layouts be inflated lazily
+	 */
+	public void setLazyInflation(boolean lazyInflation) {
+		this.mLazyInflation = lazyInflation;
+	}
 
-    // ---------------------------
-	// private methods
-	// ---------------------------	
+	/**
+	 * Gets the pool the state layouts are taken from
+	 * @return the pool or null if the layouts are not pooled
+	 */
+	public StateViewPool getStateViewPool() {
+		return mStateViewPool;
+	}
 
-	private void changeEmptyType() {
-		
-		setDefaultValues();
-		refreshMessages();
+	/**
+	 * Sets the pool the state layouts will be taken from. Layouts inflated from a resource are given back to the pool by {@link #recycleStateViews()}.
+	 * @param stateViewPool the pool, e.g. {@link StateViewPool#getDefault(Context)}, or null to inflate the layouts for this instance only
+	 */
+	public void setStateViewPool(StateViewPool stateViewPool) {
+		setStateViewPool(stateViewPool, 0);
+	}
 
-		// insert views in the root view
-		if (!mViewsAdded) {
-			RelativeLayout.LayoutParams lp = new LayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT);
-			lp.addRule(RelativeLayout.CENTER_HORIZONTAL);
-			lp.addRule(RelativeLayout.CENTER_VERTICAL);
-			RelativeLayout rl = new RelativeLayout(mContext);
-			rl.setLayoutParams(lp);
-			if (mEmptyView!=null) rl.addView(mEmptyView);
-			if (mLoadingView!=null) rl.addView(mLoadingView);
-			if (mErrorView!=null) rl.addView(mErrorView);
-			mViewsAdded = true;			
+	/**
+	 * Sets the pool the state layouts will be taken from. Layouts inflated from a resource are given back to the pool by {@link #recycleStateViews()}.
+	 * @param stateViewPool the pool, e.g. {@link StateViewPool#getDefault(Context)}, or null to inflate the layouts for this instance only
+	 * @param themeRes the theme pooled layouts are inflated with, or 0 to use the theme of the application
+	 */
+	public void setStateViewPool(StateViewPool stateViewPool, int themeRes) {
+		this.mStateViewPool = stateViewPool;
+		this.mStateViewTheme = themeRes;
+	}
 
-			ViewGroup parent = (ViewGroup) mListView.getParent();
-			parent.addView(rl);
-			mListView.setEmptyView(rl);
-		}
-		
-		
-		// change empty type
-		if (mListView!=null) {
-			View loadingAnimationView = null;
-			if (mLoadingAnimationViewId > 0) loadingAnimationView = ((Activity) mContext).findViewById(mLoadingAnimationViewId); 
-			switch (mEmptyType) {
-			case TYPE_EMPTY:
-				if (mEmptyView!=null) mEmptyView.setVisibility(View.VISIBLE);
-				if (mErrorView!=null) mErrorView.setVisibility(View.GONE);
-				if (mLoadingView!=null) {
-					mLoadingView.setVisibility(View.GONE); 
-					if (loadingAnimationView!=null && loadingAnimationView.getAnimation()!=null) loadingAnimationView.getAnimation().cancel();
-				}
-				break;
-			case TYPE_ERROR:
-				if (mEmptyView!=null) mEmptyView.setVisibility(View.GONE);
-				if (mErrorView!=null) mErrorView.setVisibility(View.VISIBLE);
-				if (mLoadingView!=null) {
-					mLoadingView.setVisibility(View.GONE); 
-					if (loadingAnimationView!=null && loadingAnimationView.getAnimation()!=null) loadingAnimationView.getAnimation().cancel();
-				}
-				break;
-			case TYPE_LOADING:
-				if (mEmptyView!=null) mEmptyView.setVisibility(View.GONE);
-				if (mErrorView!=null) mErrorView.setVisibility(View.GONE);
-				if (mLoadingView!=null) {
-					mLoadingView.setVisibility(View.VISIBLE);
-					if (mLoadingAnimation != null && loadingAnimationView!=null) {
-						loadingAnimationView.startAnimation(mLoadingAnimation);
-					}
-					else if (loadingAnimationView!=null) {
-						loadingAnimationView.startAnimation(getRotateAnimation());
-					}
-				}				
-				break;
-			default:
-				break;
-			}
-		}
+	/**
+	 * Gets if the states are drawn by a single view instead of the state layouts
+	 * @return if flat rendering is used
+	 */
+	public boolean isFlatRendering() {
+		return mFlatRendering;
 	}
-	
-	private void refreshMessages() {
-		if (mEmptyMessageViewId>0 && mEmptyMessage!=null) ((TextView)mEmptyView.findViewById(mEmptyMessageViewId)).setText(mEmptyMessage);
-		if (mLoadingMessageViewId>0 && mLoadingMessage!=null) ((TextView)mLoadingView.findViewById(mLoadingMessageViewId)).setText(mLoadingMessage);
-		if (mErrorMessageViewId>0 && mErrorMessage!=null) ((TextView)mErrorView.findViewById(mErrorMessageViewId)).setText(mErrorMessage);
+
+	/**
+	 * Sets if the states will be drawn by a single view instead of the state layouts. The view draws the default icons, the messages and the buttons itself,
+	 * which is cheaper to measure and lay out. Custom state layouts and loading animations are not used in this mode.
+	 * @param flatRendering will flat rendering be used
+	 */
+	public void setFlatRendering(boolean flatRendering) {
+		if (mFlatRendering == flatRendering) return;
+		if (mViewsAdded) recycleStateViews();
+		this.mFlatRendering = flatRendering;
 	}
 
-	private void setDefaultValues() {
-		if (mEmptyView==null) {
-			mEmptyView = (ViewGroup) mInflater.inflate(R.layout.view_empty, null);
-			if (!(mEmptyMessageViewId>0)) mEmptyMessageViewId = R.id.textViewMessage;
-			if (mShowEmptyButton && mEmptyViewButtonId>0 && mEmptyButtonClickListener!=null) {
-				View emptyViewButton = mEmptyView.findViewById(mEmptyViewButtonId);
-				if (emptyViewButton != null) {
-					emptyViewButton.setOnClickListener(mEmptyButtonClickListener);
-					emptyViewButton.setVisibility(View.VISIBLE);
-				}
-			}
-			else if (mEmptyViewButtonId>0) {
-				View emptyViewButton = mEmptyView.findViewById(mEmptyViewButtonId);
-				emptyViewButton.setVisibility(View.GONE);
-			}
-		}
-		if (mLoadingView==null) {
-			mLoadingView = (ViewGroup) mInflater.inflate(R.layout.view_loading, null);
-			mLoadingAnimationViewId = R.id.imageViewLoading;
-			if (!(mLoadingMessageViewId>0)) mLoadingMessageViewId = R.id.textViewMessage;
-			if (mShowLoadingButton && mLoadingViewButtonId>0 && mLoadingButtonClickListener!=null) {
-				View loadingViewButton = mLoadingView.findViewById(mLoadingViewButtonId);
-				if (loadingViewButton != null) {
-					loadingViewButton.setOnClickListener(mLoadingButtonClickListener);
-					loadingViewButton.setVisibility(View.VISIBLE);
-				}
-			}
-			else if (mLoadingViewButtonId>0) {
-				View loadingViewButton = mLoadingView.findViewById(mLoadingViewButtonId);
-				loadingViewButton.setVisibility(View.GONE);
-			}
-		}
-		if (mErrorView==null) {
-			mErrorView = (ViewGroup) mInflater.inflate(R.layout.view_error, null);
-			if (!(mErrorMessageViewId>0)) mErrorMessageViewId = R.id.textViewMessage;
-			if (mShowErrorButton && mErrorViewButtonId>0 && mErrorButtonClickListener!=null) {
-				View errorViewButton = mErrorView.findViewById(mErrorViewButtonId);
-				if (errorViewButton != null) {
-					errorViewButton.setOnClickListener(mErrorButtonClickListener);
-					errorViewButton.setVisibility(View.VISIBLE);
-				}
-			}
-			else if (mErrorViewButtonId>0) {
-				View errorViewButton = mErrorView.findViewById(mErrorViewButtonId);
-				errorViewButton.setVisibility(View.GONE);
-			}
-		}
+	/**
+	 * Gets how long the loading state waits before it is shown
+	 * @return the delay in milliseconds
+	 */
+	public long getLoadingShowDelay() {
+		return mLoadingShowDelay;
 	}
-	
-	private static Animation getRotateAnimation() {
-		final RotateAnimation rotateAnimation = new RotateAnimation(0, 360, Animation.RELATIVE_TO_SELF, .5f, Animation.RELATIVE_TO_SELF, .5f);
+
+	/**
+	 * Sets how long the loading state will wait before it is shown, e.g. 500. When another state is shown or the list gets items within this time
+	 * the loading state is never shown, so its layout is not inflated (with lazy inflation) and its animation is not started. The layout shown before stays until then.
+	 * @param loadingShowDelay the delay in milliseconds or 0 to show the loading state right away
+	 */
+	public void setLoadingShowDelay(long loadingShowDelay) {
+		if (loadingShowDelay < 0) throw new IllegalArgumentException("loadingShowDelay < 0");
+		this.mLoadingShowDelay = loadingShowDelay;
+	}
+
+	/**
+	 * Gets how long the loading state stays on screen at least
+	 * @return the minimum show time in milliseconds
+	 */
+	public long getLoadingMinShowTime() {
+		return mLoadingMinShowTime;
+	}
+
+	/**
+	 * Sets how long the loading state will stay on screen at least once it is shown, e.g. 500. A state change or new items arriving earlier are shown when this time is over,
+	 * so the loading layout does not flash on screen.
+	 * @param loadingMinShowTime the minimum show time in milliseconds or 0 to hide the loading state right away
+	 */
+	public void setLoadingMinShowTime(long loadingMinShowTime) {
+		if (loadingMinShowTime < 0) throw new IllegalArgumentException("loadingMinShowTime < 0");
+		this.mLoadingMinShowTime = loadingMinShowTime;
+	}
+
+	/**
+	 * Gets if the state layouts fade in and out
+	 * @return if transitions are animated
+	 */
+	public boolean isAnimateTransitions() {
+		return mAnimateTransitions;
+	}
+
+	/**
+	 * Sets if the state layouts will fade and slide in and out instead of appearing at once. Only their alpha and translation are animated, on a hardware layer,
+	 * so the transition does not lay out anything while it runs, and a state change in the middle of a transition continues from where the layouts are.
+	 * Only used on API 12 and above.
+	 * @param animateTransitions will transitions be animated
+	 */
+	public void setAnimateTransitions(boolean animateTransitions) {
+		this.mAnimateTransitions = animateTransitions;
+	}
+
+	/**
+	 * Sets how long a state layout takes to fade in or out
+	 * @param transitionDuration the duration in milliseconds
+	 */
+	public void setTransitionDuration(long transitionDuration) {
+		if (transitionDuration < 0) throw new IllegalArgumentException("transitionDuration < 0");
+		this.mTransitionDuration = transitionDuration;
+		if (mStateTransitions != null) mStateTransitions.setDuration(transitionDuration);
+	}
+
+	/**
+	 * Gets if placeholder rows are shown instead of the loading layout
+	 * @return if skeleton loading is used
+	 */
+	public boolean isSkeletonLoading() {
+		return mSkeletonLoading;
+	}
+
+	/**
+	 * Sets if placeholder rows in the shape of the list's items will be shown instead of the loading layout. All the rows are drawn by one view with one shimmering gradient.
+	 * @param skeletonLoading will skeleton loading be used
+	 */
+	public void setSkeletonLoading(boolean skeletonLoading) {
+		if (mSkeletonLoading == skeletonLoading) return;
+		if (mViewsAdded) recycleStateViews();
+		this.mSkeletonLoading = skeletonLoading;
+	}
+
+	/**
+	 * Sets the layout the placeholder rows are shaped like in skeleton loading mode, usually the adapter's row layout.
+	 * Every visible view of the layout which is not a view group is drawn as a block.
+	 * @param layoutRes the layout resource or 0 for rows of an icon and two lines of text
+	 */
+	public void setSkeletonRowLayout(int layoutRes) {
+		this.mSkeletonRowLayoutRes = layoutRes;
+		if (mSkeletonView != null) mSkeletonView.setRowLayout(layoutRes);
+	}
+
+	/**
+	 * Sets the number of placeholder rows shown in skeleton loading mode
+	 * @param rowCount the number of rows or 0 to fill the list
+	 */
+	public void setSkeletonRowCount(int rowCount) {
+		if (rowCount < 0) throw new IllegalArgumentException("rowCount < 0");
+		this.mSkeletonRowCount = rowCount;
+		if (mSkeletonView != null) mSkeletonView.setRowCount(rowCount);
+	}
+
+	/**
+	 * Gets if the text layouts of the messages are built on a background thread
+	 * @return if messages are precomputed
+	 */
+	public boolean isPrecomputeMessages() {
+		return mPrecomputeMessages;
+	}
+
+	/**
+	 * Sets if the text layout of a message will be built on a background thread as soon as the message is set, e.g. a long error message set before calling {@link #showError()},
+	 * so the state change does not measure the text on the UI thread. Only used with {@link #setFlatRendering(boolean) flat rendering} once a state has been shown.
+	 * @param precomputeMessages will messages be precomputed
+	 */
+	public void setPrecomputeMessages(boolean precomputeMessages) {
+		this.mPrecomputeMessages = precomputeMessages;
+	}
+
+	/**
+	 * Gets if the default loading animation is run by a property animator on a hardware layer
+	 * @return if the hardware loading animation is used
+	 */
+	public boolean isHardwareLoadingAnimation() {
+		return mHardwareLoadingAnimation;
+	}
+
+	/**
+	 * Sets if the default loading animation will be run by a property animator on a hardware layer instead of a view animation. The animator is created once per loading layout
+	 * and stops while the layout is hidden or not attached to a window. Only used on API 12 and above and when no animation is set by {@link #setLoadingAnimation(Animation)}.
+	 * @param hardwareLoadingAnimation will the hardware loading animation be used
+	 */
+	public void setHardwareLoadingAnimation(boolean hardwareLoadingAnimation) {
+		this.mHardwareLoadingAnimation = hardwareLoadingAnimation;
+	}
+
+	/**
+	 * Gets the receiver of the timings of this empty layout
+	 * @return the metrics or null
+	 */
+	public Metrics getMetrics() {
+		return mMetrics;
+	}
+
+	/**
+	 * Sets the receiver of the timings of this empty layout, a {@link RetryMetrics} also receives the outcome of the retries
+	 * @param metrics the metrics or null to stop taking timings
+	 */
+	public void setMetrics(Metrics metrics) {
+		this.mMetrics = metrics;
+	}
+
+	/**
+	 * Gets if state changes and inflation are marked as sections in systrace
+	 * @return if tracing is enabled
+	 */
+	public static boolean isTracingEnabled() {
+		return sTracingEnabled;
+	}
+
+	/**
+	 * Sets if state changes and inflation will be marked as sections in systrace. Only used on API 18 and above.
+	 * @param tracingEnabled will tracing be enabled
+	 */
+	public static void setTracingEnabled(boolean tracingEnabled) {
+		sTracingEnabled = tracingEnabled;
+	}
+
+	/**
+	 * Gets how many times the state layouts of all the empty layouts were searched for their message, button or animation view,
+	 * e.g. to check that the views are only looked up once per layout and not on every state change
+	 * @return the number of <code>findViewById()</code> calls
+	 */
+	public static int getViewLookupCount() {
+		return StateViewHolder.getLookupCount();
+	}
+
+	/**
+	 * Gets the config every new empty layout starts with
+	 * @return the default config or null
+	 */
+	public static EmptyLayoutConfig getDefaultConfig() {
+		return sDefaultConfig;
+	}
+
+	/**
+	 * Sets the config every empty layout created from now on will start with, e.g. from <code>Application.onCreate()</code>. Can be called from any thread.
+	 * @param config the config or null to start with the defaults of the library
+	 */
+	public static void setDefaultConfig(EmptyLayoutConfig config) {
+		sDefaultConfig = config;
+	}
+
+	/**
+	 * Gets the config this empty layout was last set up with
+	 * @return the config or null
+	 */
+	public EmptyLayoutConfig getConfig() {
+		return mConfig;
+	}
+
+	/**
+	 * Sets this empty layout up with a shared config, instead of calling the setters one by one. Layouts and animations set as resources are only inflated or loaded
+	 * when they are first needed. Every setting is replaced, so the default layouts and animation are used again where the config has none.
+	 * The setters can still be called afterwards to change single settings of this empty layout.
+	 * @param config the config
+	 */
+	public void setConfig(EmptyLayoutConfig config) {
+		if (config == null) throw new IllegalArgumentException("config == null");
+		if (mViewsAdded) recycleStateViews();
+		this.mConfig = config;
+		// a resource of 0 brings back the default layout, which is inflated when it is first needed
+		mLoadingView = null;
+		mLoadingViewHolder = null;
+		mLoadingViewRes = config.getLoadingViewRes();
+		mLoadingMessageViewId = config.getLoadingMessageViewId();
+		mLoadingAnimationViewId = config.getLoadingAnimationViewId();
+		mEmptyView = null;
+		mEmptyViewHolder = null;
+		mEmptyViewRes = config.getEmptyViewRes();
+		mEmptyMessageViewId = config.getEmptyMessageViewId();
+		mErrorView = null;
+		mErrorViewHolder = null;
+		mErrorViewRes = config.getErrorViewRes();
+		mErrorMessageViewId = config.getErrorMessageViewId();
+		setLoadingAnimationRes(config.getLoadingAnimationRes());
+		mLoadingMessage = config.getLoadingMessage();
+		mEmptyMessage = config.getEmptyMessage();
+		mErrorMessage = config.getErrorMessage();
+		mShowLoadingButton = config.isLoadingButtonShown();
+		mShowEmptyButton = config.isEmptyButtonShown();
+		mShowErrorButton = config.isErrorButtonShown();
+		mLazyInflation = config.isLazyInflation();
+		setCoalesceChanges(config.isCoalesceChanges());
+		mFlatRendering = config.isFlatRendering();
+		mHardwareLoadingAnimation = config.isHardwareLoadingAnimation();
+		mAnimateTransitions = config.isAnimateTransitions();
+		setTransitionDuration(config.getTransitionDuration());
+		mLoadingShowDelay = config.getLoadingShowDelay();
+		mLoadingMinShowTime = config.getLoadingMinShowTime();
+		mStateViewPool = config.getStateViewPool();
+		mStateViewTheme = config.getStateViewTheme();
+		mRetryPolicy = config.getRetryPolicy();
+	}
+
+	/**
+	 * Gets if state changes are collected and applied once per frame
+	 * @return if state changes are coalesced
+	 */
+	public boolean isCoalesceChanges() {
+		return mCoalesceChanges;
+	}
+
+	/**
+	 * Sets if state changes will be collected and applied once per frame. When many <code>show...()</code> calls are made within one frame only the last one touches the layouts,
+	 * and a change to the state and message already on screen is ignored.
+	 * @param coalesceChanges will state changes be coalesced
+	 */
+	public void setCoalesceChanges(boolean coalesceChanges) {
+		this.mCoalesceChanges = coalesceChanges;
+		if (!coalesceChanges && mChangeScheduled) {
+			cancelScheduledChange();
+			changeEmptyType();
+		}
+	}
+
+	/**
+	 * Gets how many state changes were replaced by a later change in the same frame before they reached the screen
+	 * @return the number of coalesced state changes
+	 */
+	public int getCoalescedChangeCount() {
+		return mCoalescedChangeCount;
+	}
+
+	/**
+	 * Gets how many coalesced state changes were ignored because the same state and message were already shown
+	 * @return the number of skipped state changes
+	 */
+	public int getSkippedChangeCount() {
+		return mSkippedChangeCount;
+	}
+
+	/**
+	 * Gets the listener which is asked for the next page of the list
+	 * @return the listener or null
+	 */
+	public OnLoadMoreListener getOnLoadMoreListener() {
+		return mOnLoadMoreListener;
+	}
+
+	/**
+	 * Sets the listener which will be asked for the next page when the user scrolls within {@link #setPrefetchDistance(int) the prefetch distance} of the end of the list.
+	 * The loading and error layouts are then also shown as the last row of the list. Only used with a {@link ListView}.
+	 * @param onLoadMoreListener the listener or null when the list has no more pages
+	 */
+	public void setOnLoadMoreListener(OnLoadMoreListener onLoadMoreListener) {
+		this.mOnLoadMoreListener = onLoadMoreListener;
+		if (onLoadMoreListener != null) attachFooter();
+	}
+
+	/**
+	 * Gets how many items before the end of the list the next page is asked for
+	 * @return the prefetch distance in items
+	 */
+	public int getPrefetchDistance() {
+		return mPrefetchDistance;
+	}
+
+	/**
+	 * Sets how many items before the end of the list the next page will be asked for. A larger distance hides more of the time the page takes to load.
+	 * @param prefetchDistance the prefetch distance in items
+	 */
+	public void setPrefetchDistance(int prefetchDistance) {
+		if (prefetchDistance < 0) throw new IllegalArgumentException("prefetchDistance < 0");
+		this.mPrefetchDistance = prefetchDistance;
+	}
+
+	/**
+	 * Gets whether the list has more pages to load
+	 * @return true if the next page will be asked for
+	 */
+	public boolean hasMore() {
+		return mHasMore;
+	}
+
+	/**
+	 * Sets whether the list has more pages to load. When it has no more pages the {@link OnLoadMoreListener} is not called and the loading footer is hidden.
+	 * Set it to true again when the list is loaded from the start.
+	 * @param hasMore false after the last page was loaded
+	 */
+	public void setHasMore(boolean hasMore) {
+		this.mHasMore = hasMore;
+		if (hasMore) {
+			checkPrefetchDistance();
+			return;
+		}
+		mHandler.removeCallbacks(mLoadMoreRunnable);
+		mLoadMorePosted = false;
+		if (mFooterType == TYPE_LOADING) hideFooter();
+	}
+
+	/**
+	 * Gets the state shown as the last row of the list
+	 * @return loading or error, or 0 if no footer is shown
+	 */
+	public int getFooterType() {
+		return mFooterType;
+	}
+
+	/**
+	 * Gets if the layout of a state has been created yet. Useful to find out which layouts were actually needed when lazy inflation is on.
+	 * @param emptyType loading or empty or error
+	 * @return if the layout of the state exists
+	 */
+	public boolean isViewInflated(int emptyType) {
+		switch (emptyType) {
+		case TYPE_EMPTY:
+			return mEmptyView!=null;
+		case TYPE_LOADING:
+			return mLoadingView!=null;
+		case TYPE_ERROR:
+			return mErrorView!=null;
+		default:
+			return false;
+		}
+	}
+
+    
+
+
+    
+
+    // ---------------------------
+	// private methods
+	// ---------------------------	
+
+	private void changeEmptyType() {
+		Metrics metrics = mMetrics;
+		long start = metrics != null ? System.nanoTime() : 0;
+		beginTraceSection("EmptyLayout#changeEmptyType");
+		try {
+			applyEmptyType();
+		}
+		finally {
+			endTraceSection();
+		}
+		if (metrics != null) {
+			long latency = mChangeRequestedAt > 0 ? start - mChangeRequestedAt : 0;
+			metrics.onStateChangeApplied(this, mEmptyType, latency, System.nanoTime() - start);
+		}
+		mChangeRequestedAt = 0;
+	}
+	
+	private void applyEmptyType() {
+		
+		// the loading layout is not needed while placeholder rows take its place
+		boolean skeleton = mSkeletonLoading && mEmptyType == TYPE_LOADING;
+		if (!mFlatRendering) {
+			if (!mLazyInflation) setDefaultValues();
+			else if (!skeleton) setDefaultValues(mEmptyType);
+			refreshMessages();
+		}
+
+		// insert views next to the content view
+		if (mHost == null) return;
+		if (!mViewsAdded) {
+			mHost.startObserving(mHostListener);
+			mViewsAdded = true;
+		}
+		
+		// layouts created since the last change (lazily or by a setter) are added here
+		if (skeleton && mSkeletonView == null) {
+			mSkeletonView = new SkeletonView(mContext);
+			mSkeletonView.setRowLayout(mSkeletonRowLayoutRes);
+			mSkeletonView.setRowCount(mSkeletonRowCount);
+		}
+		if (mSkeletonView != null && mSkeletonView.getParent() == null) addStateView(mSkeletonView, true);
+		if (mFlatRendering) {
+			if (mStateView == null) mStateView = new StateView(mContext);
+			if (mStateView.getParent()==null) addStateView(mStateView);
+		}
+		else {
+			if (mEmptyView!=null && mEmptyView.getParent()==null) addStateView(mEmptyView);
+			if (mLoadingView!=null && mLoadingView.getParent()==null) addStateView(mLoadingView);
+			if (mErrorView!=null && mErrorView.getParent()==null) addStateView(mErrorView);
+		}
+		
+		// the state layouts take the place of the content while it is empty
+		mContentEmpty = isHostEmpty();
+		mHost.getContentView().setVisibility(mContentEmpty ? View.GONE : View.VISIBLE);
+		int shownType = mContentEmpty ? mEmptyType : 0;
+		if (shownType != mShownType) onShownTypeChanged(shownType);
+		if (mSkeletonView != null) setStateViewShown(mSkeletonView, skeleton && mContentEmpty);
+		int layoutType = skeleton ? 0 : shownType;
+		
+		if (mFlatRendering) {
+			updateStateView(layoutType);
+			rememberAppliedState();
+			return;
+		}
+		
+		// change empty type
+		if (mEmptyView!=null) setStateViewShown(mEmptyView, layoutType == TYPE_EMPTY);
+		if (mErrorView!=null) setStateViewShown(mErrorView, layoutType == TYPE_ERROR);
+		if (mLoadingView!=null) {
+			if (layoutType == TYPE_LOADING) {
+				setStateViewShown(mLoadingView, true);
+				startLoadingAnimation();
+			}
+			else {
+				setStateViewShown(mLoadingView, false);
+				pauseLoadingAnimation();
+			}
+		}
+		rememberAppliedState();
+	}
+	
+	private void rememberAppliedState() {
+		mAppliedEmptyType = mEmptyType;
+		mAppliedMessage = getMessage(mEmptyType);
+		mAppliedContentEmpty = mContentEmpty;
+		mStateViewsDirty = false;
+	}
+	
+	private void onShownTypeChanged(int shownType) {
+		long now = SystemClock.uptimeMillis();
+		if (mMetrics != null) {
+			if (mShownType != 0) mMetrics.onStateExit(this, mShownType, now, now - mShownSince);
+			if (shownType != 0) mMetrics.onStateEnter(this, shownType, now);
+		}
+		mShownType = shownType;
+		mShownSince = now;
+	}
+	
+	private static void beginTraceSection(String sectionName) {
+		if (sTracingEnabled && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) Trace.beginSection(sectionName);
+	}
+	
+	private static void endTraceSection() {
+		if (sTracingEnabled && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) Trace.endSection();
+	}
+	
+	private boolean isHostEmpty() {
+		return mHost == null || mHost.getItemCount() == 0;
+	}
+	
+	private void updateStateView(int shownType) {
+		switch (shownType) {
+		case TYPE_EMPTY:
+			mStateView.setIcon(R.drawable.ic_empty);
+			mStateView.setMessage(mEmptyMessage);
+			mStateView.setButton(mShowEmptyButton && mEmptyButtonClickListener!=null ? mContext.getString(R.string.empty_button) : null, mEmptyButtonClickListener);
+			break;
+		case TYPE_LOADING:
+			mStateView.setIcon(R.drawable.ic_loading);
+			mStateView.setMessage(mLoadingMessage);
+			mStateView.setButton(mShowLoadingButton && mLoadingButtonClickListener!=null ? mContext.getString(R.string.loading_button) : null, mLoadingButtonClickListener);
+			break;
+		case TYPE_ERROR:
+			mStateView.setIcon(R.drawable.ic_error);
+			mStateView.setMessage(getShownErrorMessage());
+			View.OnClickListener errorButtonListener = getErrorButtonListener();
+			mStateView.setButton(mShowErrorButton && errorButtonListener!=null ? mContext.getString(R.string.error_button) : null, errorButtonListener);
+			break;
+		default:
+			mStateView.setSpinning(false);
+			setStateViewShown(mStateView, false);
+			return;
+		}
+		mStateView.setSpinning(shownType == TYPE_LOADING);
+		setStateViewShown(mStateView, true);
+	}
+	
+	private void addStateView(View view) {
+		addStateView(view, false);
+	}
+	
+	private void setStateViewShown(View view, boolean shown) {
+		if (mAnimateTransitions && Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB_MR1) {
+			if (mStateTransitions == null) mStateTransitions = new StateTransitions(16 * mContext.getResources().getDisplayMetrics().density, mTransitionDuration);
+			if (shown) mStateTransitions.show(view);
+			else mStateTransitions.hide(view);
+			return;
+		}
+		if (mStateTransitions != null) mStateTransitions.reset(view);
+		view.setVisibility(shown ? View.VISIBLE : View.GONE);
+	}
+	
+	private void resetTransition(View view) {
+		if (mStateTransitions != null && view != null) mStateTransitions.reset(view);
+	}
+	
+	private void addStateView(View view, boolean fill) {
+		// added hidden, the state change right after shows it, with a transition if they are animated
+		view.setVisibility(View.GONE);
+		View content = mHost.getContentView();
+		ViewGroup parent = (ViewGroup) content.getParent();
+		parent.addView(view, parent.indexOfChild(content) + 1, fill ? createFillLayoutParams(parent) : createStateLayoutParams(parent));
+	}
+	
+	private static ViewGroup.LayoutParams createFillLayoutParams(ViewGroup parent) {
+		// takes the whole space of the content, like the content usually does
+		if (parent instanceof RelativeLayout) return new RelativeLayout.LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.MATCH_PARENT);
+		if (parent instanceof FrameLayout) return new FrameLayout.LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.MATCH_PARENT);
+		if (parent instanceof LinearLayout) return new LinearLayout.LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.MATCH_PARENT);
+		return new ViewGroup.LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.MATCH_PARENT);
+	}
+	
+	private static ViewGroup.LayoutParams createStateLayoutParams(ViewGroup parent) {
+		// centered where the parent supports it
+		if (parent instanceof RelativeLayout) {
+			RelativeLayout.LayoutParams lp = new RelativeLayout.LayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT);
+			lp.addRule(RelativeLayout.CENTER_HORIZONTAL);
+			lp.addRule(RelativeLayout.CENTER_VERTICAL);
+			return lp;
+		}
+		if (parent instanceof FrameLayout) {
+			return new FrameLayout.LayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT, Gravity.CENTER);
+		}
+		if (parent instanceof LinearLayout) {
+			LinearLayout.LayoutParams lp = new LinearLayout.LayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT);
+			lp.gravity = Gravity.CENTER;
+			return lp;
+		}
+		return new ViewGroup.LayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT);
+	}
+	
+	private void requestEmptyTypeChange() {
+		if (mReleased) return;
+		updateRetry();
+		if (deferLoadingChange()) return;
+		scheduleEmptyTypeChange();
+	}
+	
+	// returns true when the change will be applied later because of the loading show delay or minimum show time
+	private boolean deferLoadingChange() {
+		if (mLoadingShowDelay <= 0 && mLoadingMinShowTime <= 0) return false;
+		boolean loadingRequested = mEmptyType == TYPE_LOADING && isHostEmpty();
+		boolean loadingShown = mShownType == TYPE_LOADING;
+		long now = SystemClock.uptimeMillis();
+		if (loadingRequested) {
+			mHandler.removeCallbacks(mMinShowTimeRunnable);
+			if (loadingShown || mLoadingShowDelay <= 0) return false;
+			if (mLoadingRequestedAt == 0) {
+				mLoadingRequestedAt = now;
+				mHandler.postAtTime(mDelayedLoadingRunnable, now + mLoadingShowDelay);
+			}
+			if (mChangeScheduled) cancelScheduledChange();
+			return true;
+		}
+		// the loading state is no longer wanted before it was shown
+		if (mLoadingRequestedAt != 0) {
+			mHandler.removeCallbacks(mDelayedLoadingRunnable);
+			mLoadingRequestedAt = 0;
+		}
+		if (loadingShown && mLoadingMinShowTime > 0 && now < mShownSince + mLoadingMinShowTime) {
+			mHandler.removeCallbacks(mMinShowTimeRunnable);
+			mHandler.postAtTime(mMinShowTimeRunnable, mShownSince + mLoadingMinShowTime);
+			if (mChangeScheduled) cancelScheduledChange();
+			return true;
+		}
+		return false;
+	}
+	
+	private void scheduleEmptyTypeChange() {
+		if (mMetrics != null && mChangeRequestedAt == 0) mChangeRequestedAt = System.nanoTime();
+		if (!mCoalesceChanges) {
+			changeEmptyType();
+			return;
+		}
+		if (mChangeScheduled) {
+			mCoalescedChangeCount++;
+			return;
+		}
+		mChangeScheduled = true;
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+			if (mFrameCallback == null) {
+				mFrameCallback = new Choreographer.FrameCallback() {
+					@Override
+					public void doFrame(long frameTimeNanos) {
+						applyScheduledChange();
+					}
+				};
+			}
+			Choreographer.getInstance().postFrameCallback((Choreographer.FrameCallback) mFrameCallback);
+		}
+		else {
+			mHandler.post(mApplyChangeRunnable);
+		}
+	}
+	
+	private void cancelScheduledChange() {
+		mChangeScheduled = false;
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+			if (mFrameCallback != null) Choreographer.getInstance().removeFrameCallback((Choreographer.FrameCallback) mFrameCallback);
+		}
+		else {
+			mHandler.removeCallbacks(mApplyChangeRunnable);
+		}
+	}
+	
+	private void applyScheduledChange() {
+		if (!mChangeScheduled) return;
+		mChangeScheduled = false;
+		// a setter may have changed a layout, message or button since the last change, which is applied even if the state stays the same
+		if (mViewsAdded && !mStateViewsDirty && mEmptyType == mAppliedEmptyType && TextUtils.equals(getMessage(mEmptyType), mAppliedMessage) && isHostEmpty() == mAppliedContentEmpty) {
+			mSkippedChangeCount++;
+			return;
+		}
+		changeEmptyType();
+	}
+	
+	private CharSequence getMessage(int emptyType) {
+		switch (emptyType) {
+		case TYPE_EMPTY:
+			return mEmptyMessage;
+		case TYPE_LOADING:
+			return mLoadingMessage;
+		case TYPE_ERROR:
+			return mErrorMessage;
+		default:
+			return null;
+		}
+	}
+	
+	private void postState(int emptyType, CharSequence message, boolean replaceMessage) {
+		if (mReleased) return;
+		// only the latest state is kept, the main thread is only posted to when no state is waiting
+		long postedAt = mMetrics != null ? System.nanoTime() : 0;
+		PostedState previous;
+		PostedState state;
+		do {
+			previous = mPostedState.get();
+			// the messages of the states replaced before the UI thread got to them are kept
+			state = new PostedState(emptyType, previous, postedAt);
+			if (replaceMessage) state.setMessage(emptyType, message);
+		}
+		while (!mPostedState.compareAndSet(previous, state));
+		if (previous == null) mHandler.post(mApplyPostedStateRunnable);
+	}
+	
+	private void applyPostedState() {
+		PostedState state = mPostedState.getAndSet(null);
+		if (state == null) return;
+		if (state.replaceEmptyMessage) mEmptyMessage = state.emptyMessage;
+		if (state.replaceLoadingMessage) mLoadingMessage = state.loadingMessage;
+		if (state.replaceErrorMessage) mErrorMessage = state.errorMessage;
+		mEmptyType = state.emptyType;
+		if (state.postedAt > 0 && (mChangeRequestedAt == 0 || state.postedAt < mChangeRequestedAt)) mChangeRequestedAt = state.postedAt;
+		requestEmptyTypeChange();
+	}
+	
+	private static class PostedState {
+		final int emptyType;
+		final long postedAt;
+		CharSequence emptyMessage;
+		CharSequence loadingMessage;
+		CharSequence errorMessage;
+		boolean replaceEmptyMessage;
+		boolean replaceLoadingMessage;
+		boolean replaceErrorMessage;
+		
+		PostedState(int emptyType, PostedState previous, long postedAt) {
+			this.emptyType = emptyType;
+			// the time of the first state still waiting
+			this.postedAt = previous != null && previous.postedAt > 0 ? previous.postedAt : postedAt;
+			if (previous == null) return;
+			emptyMessage = previous.emptyMessage;
+			loadingMessage = previous.loadingMessage;
+			errorMessage = previous.errorMessage;
+			replaceEmptyMessage = previous.replaceEmptyMessage;
+			replaceLoadingMessage = previous.replaceLoadingMessage;
+			replaceErrorMessage = previous.replaceErrorMessage;
+		}
+		
+		void setMessage(int emptyType, CharSequence message) {
+			switch (emptyType) {
+			case TYPE_EMPTY:
+				emptyMessage = message;
+				replaceEmptyMessage = true;
+				break;
+			case TYPE_LOADING:
+				loadingMessage = message;
+				replaceLoadingMessage = true;
+				break;
+			case TYPE_ERROR:
+				errorMessage = message;
+				replaceErrorMessage = true;
+				break;
+			default:
+				break;
+			}
+		}
+	}
+	
+	private void refreshMessages() {
+		if (mEmptyView!=null && mEmptyMessageViewId>0 && mEmptyMessage!=null) getEmptyViewHolder().setMessage(mEmptyMessageViewId, mEmptyMessage);
+		if (mLoadingView!=null && mLoadingMessageViewId>0 && mLoadingMessage!=null) getLoadingViewHolder().setMessage(mLoadingMessageViewId, mLoadingMessage);
+		if (mErrorView!=null && mErrorMessageViewId>0 && getShownErrorMessage()!=null) getErrorViewHolder().setMessage(mErrorMessageViewId, getShownErrorMessage());
+	}
+	
+	private ViewGroup retainStateView(RetainedStateViews retained, ViewGroup view, int res) {
+		if (view == null || res <= 0 || !isContextIndependent(view)) return view;
+		if (view.getParent() instanceof ViewGroup) ((ViewGroup) view.getParent()).removeView(view);
+		resetTransition(view);
+		// the click listeners belong to the old activity
+		StateViewPool.resetView(view);
+		view.setVisibility(View.VISIBLE);
+		retained.views.put(res, view);
+		return null;
+	}
+	
+	private static boolean isContextIndependent(View view) {
+		Context context = view.getContext();
+		while (context instanceof ContextWrapper) {
+			if (context instanceof Activity) return false;
+			context = ((ContextWrapper) context).getBaseContext();
+		}
+		return true;
+	}
+	
+	private static class RetainedStateViews {
+		final Configuration configuration;
+		final SparseArray<ViewGroup> views = new SparseArray<ViewGroup>();
+		
+		RetainedStateViews(Configuration configuration) {
+			this.configuration = new Configuration(configuration);
+		}
+	}
+	
+	/**
+	 * Releases an empty layout when its activity is destroyed. Static and with weak references, since the application keeps its callbacks
+	 * and the empty layout keeps the activity as its context. Requires API 14.
+	 */
+	private static class ReleaseOnDestroyCallbacks implements Application.ActivityLifecycleCallbacks {
+		private final Application mApplication;
+		private final WeakReference<Activity> mActivity;
+		private final WeakReference<EmptyLayout> mEmptyLayout;
+
+		ReleaseOnDestroyCallbacks(Application application, Activity activity, EmptyLayout emptyLayout) {
+			mApplication = application;
+			mActivity = new WeakReference<Activity>(activity);
+			mEmptyLayout = new WeakReference<EmptyLayout>(emptyLayout);
+		}
+
+		@Override
+		public void onActivityDestroyed(Activity destroyedActivity) {
+			EmptyLayout emptyLayout = mEmptyLayout.get();
+			// an empty layout which was collected with its screen has nothing left to release
+			if (emptyLayout == null) mApplication.unregisterActivityLifecycleCallbacks(this);
+			else if (destroyedActivity == mActivity.get()) emptyLayout.release();
+		}
+
+		@Override
+		public void onActivityCreated(Activity createdActivity, Bundle savedInstanceState) {
+		}
+
+		@Override
+		public void onActivityStarted(Activity startedActivity) {
+		}
+
+		@Override
+		public void onActivityResumed(Activity resumedActivity) {
+		}
+
+		@Override
+		public void onActivityPaused(Activity pausedActivity) {
+		}
+
+		@Override
+		public void onActivityStopped(Activity stoppedActivity) {
+		}
+
+		@Override
+		public void onActivitySaveInstanceState(Activity savingActivity, Bundle outState) {
+		}
+	}
+	
+	private void unbindFromActivity() {
+		if (mLifecycleCallbacks == null) return;
+		mBoundApplication.unregisterActivityLifecycleCallbacks((Application.ActivityLifecycleCallbacks) mLifecycleCallbacks);
+		mLifecycleCallbacks = null;
+		mBoundApplication = null;
+	}
+	
+	private void precomputeMessage(CharSequence message) {
+		if (mPrecomputeMessages && mFlatRendering && mStateView != null) mStateView.precomputeMessage(message);
+	}
+	
+	// the holders are created again whenever a layout has been replaced
+	private StateViewHolder getEmptyViewHolder() {
+		if (mEmptyViewHolder == null || mEmptyViewHolder.view != mEmptyView) mEmptyViewHolder = new StateViewHolder(mEmptyView);
+		return mEmptyViewHolder;
+	}
+	
+	private StateViewHolder getLoadingViewHolder() {
+		if (mLoadingViewHolder == null || mLoadingViewHolder.view != mLoadingView) mLoadingViewHolder = new StateViewHolder(mLoadingView);
+		return mLoadingViewHolder;
+	}
+	
+	private StateViewHolder getErrorViewHolder() {
+		if (mErrorViewHolder == null || mErrorViewHolder.view != mErrorView) mErrorViewHolder = new StateViewHolder(mErrorView);
+		return mErrorViewHolder;
+	}
+
+	private void setDefaultValues() {
+		setDefaultValues(TYPE_EMPTY);
+		setDefaultValues(TYPE_LOADING);
+		setDefaultValues(TYPE_ERROR);
+	}
+	
+	private void setDefaultValues(int emptyType) {
+		// custom layouts given back to the pool are taken again from their resource
+		if (emptyType==TYPE_EMPTY && mEmptyView==null && mEmptyViewRes>0 && mEmptyViewRes!=R.layout.view_empty) mEmptyView = inflateStateView(mEmptyViewRes);
+		if (emptyType==TYPE_LOADING && mLoadingView==null && mLoadingViewRes>0 && mLoadingViewRes!=R.layout.view_loading) mLoadingView = inflateStateView(mLoadingViewRes);
+		if (emptyType==TYPE_ERROR && mErrorView==null && mErrorViewRes>0 && mErrorViewRes!=R.layout.view_error) mErrorView = inflateStateView(mErrorViewRes);
+		if (emptyType==TYPE_EMPTY && mEmptyView==null) {
+			mEmptyView = inflateStateView(R.layout.view_empty);
+			mEmptyViewRes = R.layout.view_empty;
+			if (!(mEmptyMessageViewId>0)) mEmptyMessageViewId = R.id.textViewMessage;
+			if (mShowEmptyButton && mEmptyViewButtonId>0 && mEmptyButtonClickListener!=null) {
+				View emptyViewButton = getEmptyViewHolder().getButton(mEmptyViewButtonId);
+				if (emptyViewButton != null) {
+					emptyViewButton.setOnClickListener(mEmptyButtonClickListener);
+					emptyViewButton.setVisibility(View.VISIBLE);
+				}
+			}
+			else if (mEmptyViewButtonId>0) {
+				View emptyViewButton = getEmptyViewHolder().getButton(mEmptyViewButtonId);
+				emptyViewButton.setVisibility(View.GONE);
+			}
+		}
+		if (emptyType==TYPE_LOADING && mLoadingView==null) {
+			mLoadingView = inflateStateView(R.layout.view_loading);
+			mLoadingViewRes = R.layout.view_loading;
+			mLoadingAnimationViewId = R.id.imageViewLoading;
+			if (!(mLoadingMessageViewId>0)) mLoadingMessageViewId = R.id.textViewMessage;
+			if (mShowLoadingButton && mLoadingViewButtonId>0 && mLoadingButtonClickListener!=null) {
+				View loadingViewButton = getLoadingViewHolder().getButton(mLoadingViewButtonId);
+				if (loadingViewButton != null) {
+					loadingViewButton.setOnClickListener(mLoadingButtonClickListener);
+					loadingViewButton.setVisibility(View.VISIBLE);
+				}
+			}
+			else if (mLoadingViewButtonId>0) {
+				View loadingViewButton = getLoadingViewHolder().getButton(mLoadingViewButtonId);
+				loadingViewButton.setVisibility(View.GONE);
+			}
+		}
+		if (emptyType==TYPE_ERROR && mErrorView==null) {
+			mErrorView = inflateStateView(R.layout.view_error);
+			mErrorViewRes = R.layout.view_error;
+			if (!(mErrorMessageViewId>0)) mErrorMessageViewId = R.id.textViewMessage;
+			if (mShowErrorButton && mErrorViewButtonId>0 && getErrorButtonListener()!=null) {
+				View errorViewButton = getErrorViewHolder().getButton(mErrorViewButtonId);
+				if (errorViewButton != null) {
+					errorViewButton.setOnClickListener(getErrorButtonListener());
+					errorViewButton.setVisibility(View.VISIBLE);
+				}
+			}
+			else if (mErrorViewButtonId>0) {
+				View errorViewButton = getErrorViewHolder().getButton(mErrorViewButtonId);
+				errorViewButton.setVisibility(View.GONE);
+			}
+		}
+	}
+	
+	private ViewGroup inflateStateView(int res) {
+		Metrics metrics = mMetrics;
+		long start = metrics != null ? System.nanoTime() : 0;
+		beginTraceSection("EmptyLayout#inflate");
+		try {
+			return obtainStateView(res);
+		}
+		finally {
+			endTraceSection();
+			if (metrics != null) metrics.onLayoutInflated(this, res, System.nanoTime() - start);
+		}
+	}
+	
+	private ViewGroup obtainStateView(int res) {
+		// layouts handed over from the instance before a configuration change
+		if (mRetainedViews != null) {
+			ViewGroup view = mRetainedViews.get(res);
+			if (view != null) {
+				mRetainedViews.remove(res);
+				return view;
+			}
+		}
+		if (mStateViewPool != null) return (ViewGroup) mStateViewPool.obtain(mContext, res, mStateViewTheme);
+		// use a layout inflated by prewarm() if there is one, the pool links on every API level
+		StateViewPool defaultPool = StateViewPool.peekDefault();
+		if (defaultPool != null) {
+			View view = defaultPool.poll(res, 0);
+			if (view != null) return (ViewGroup) view;
+		}
+		return (ViewGroup) CompiledLayouts.inflate(mInflater, res);
+	}
+	
+	private ViewGroup recycleStateView(ViewGroup view, int res) {
+		if (view == null) return null;
+		if (mStateViewPool != null && res > 0) {
+			// the pool drops the click listeners, which may belong to the activity
+			mStateViewPool.release(res, mStateViewTheme, view);
+			return null;
+		}
+		// layouts which can't be pooled are kept for the next state change
+		if (view.getParent() instanceof ViewGroup) ((ViewGroup) view.getParent()).removeView(view);
+		return view;
+	}
+	
+	private void startLoadingAnimation() {
+		mLoadingAnimationRequested = true;
+		watchLoadingView();
+		updateLoadingAnimation();
+	}
+	
+	private void stopLoadingAnimation() {
+		mLoadingAnimationRequested = false;
+		unwatchLoadingView();
+		haltLoadingAnimation();
+	}
+	
+	// the hidden loading layout stays watched, so switching between the states does not add and remove its listeners every time
+	private void pauseLoadingAnimation() {
+		mLoadingAnimationRequested = false;
+		haltLoadingAnimation();
+	}
+	
+	// the animation only runs while the loading layout is really on screen
+	private void updateLoadingAnimation() {
+		boolean shown = mLoadingAnimationRequested && mLoadingView != null && mLoadingView.isShown();
+		if (shown && !mLoadingAnimationRunning) runLoadingAnimation();
+		else if (!shown && mLoadingAnimationRunning) haltLoadingAnimation();
+	}
+	
+	private void runLoadingAnimation() {
+		View loadingAnimationView = getLoadingViewHolder().getAnimationView(mLoadingAnimationViewId);
+		if (loadingAnimationView == null) return;
+		mLoadingAnimationRunning = true;
+		Animation loadingAnimation = getLoadingAnimation();
+		if (loadingAnimation != null) {
+			loadingAnimationView.startAnimation(loadingAnimation);
+		}
+		else if (useLoadingAnimator()) {
+			getLoadingViewHolder().getLoadingAnimator(mLoadingAnimationViewId).start();
+		}
+		else {
+			loadingAnimationView.startAnimation(getRotateAnimation());
+		}
+	}
+	
+	private void haltLoadingAnimation() {
+		mLoadingAnimationRunning = false;
+		if (mLoadingView == null) return;
+		View loadingAnimationView = getLoadingViewHolder().getAnimationView(mLoadingAnimationViewId);
+		if (loadingAnimationView == null) return;
+		if (loadingAnimationView.getAnimation() != null) loadingAnimationView.clearAnimation();
+		LoadingAnimator loadingAnimator = getLoadingViewHolder().peekLoadingAnimator();
+		if (loadingAnimator != null) loadingAnimator.stop();
+	}
+	
+	private void watchLoadingView() {
+		if (mWatchedLoadingView == mLoadingView) return;
+		unwatchLoadingView();
+		mWatchedLoadingView = mLoadingView;
+		// on API 12+ the pre-draw listener is added to the window's observer when the layout gets attached
+		if (Build.VERSION.SDK_INT < Build.VERSION_CODES.HONEYCOMB_MR1 || mLoadingView.getWindowToken() != null) {
+			mLoadingView.getViewTreeObserver().addOnPreDrawListener(mLoadingPreDrawListener);
+		}
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB_MR1) {
+			mLoadingView.addOnAttachStateChangeListener(getLoadingAttachListener());
+		}
+	}
+	
+	private void unwatchLoadingView() {
+		if (mWatchedLoadingView == null) return;
+		ViewTreeObserver observer = mWatchedLoadingView.getViewTreeObserver();
+		if (observer.isAlive()) observer.removeOnPreDrawListener(mLoadingPreDrawListener);
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB_MR1) {
+			mWatchedLoadingView.removeOnAttachStateChangeListener(getLoadingAttachListener());
+		}
+		mWatchedLoadingView = null;
+	}
+	
+	private View.OnAttachStateChangeListener getLoadingAttachListener() {
+		if (mLoadingAttachListener == null) {
+			mLoadingAttachListener = new View.OnAttachStateChangeListener() {
+				@Override
+				public void onViewAttachedToWindow(View v) {
+					v.getViewTreeObserver().addOnPreDrawListener(mLoadingPreDrawListener);
+					updateLoadingAnimation();
+				}
+				
+				@Override
+				public void onViewDetachedFromWindow(View v) {
+					v.getViewTreeObserver().removeOnPreDrawListener(mLoadingPreDrawListener);
+					haltLoadingAnimation();
+				}
+			};
+		}
+		return (View.OnAttachStateChangeListener) mLoadingAttachListener;
+	}
+	
+	private boolean useLoadingAnimator() {
+		return mHardwareLoadingAnimation && Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB_MR1;
+	}
+	
+	private Animation getRotateAnimation() {
+		// one animation is kept and restarted for every loading state
+		if (mRotateAnimation == null) mRotateAnimation = createRotateAnimation();
+		return mRotateAnimation;
+	}
+	
+	private static Animation createRotateAnimation() {
+		RotateAnimation rotateAnimation = new RotateAnimation(0, 360, Animation.RELATIVE_TO_SELF, .5f, Animation.RELATIVE_TO_SELF, .5f);
 		rotateAnimation.setDuration(1500);		
 		rotateAnimation.setInterpolator(new LinearInterpolator());
-		rotateAnimation.setRepeatCount(Animation.INFINITE);		
+		rotateAnimation.setRepeatCount(Animation.INFINITE);
 		return rotateAnimation;
 	}
 	
+	// ---------------------------
+	// retry
+	// ---------------------------
+
+	private View.OnClickListener getErrorButtonListener() {
+		return mOnRetryListener != null ? mRetryClickListener : mErrorButtonClickListener;
+	}
+
+	private CharSequence getShownErrorMessage() {
+		return mRetryCountdownMessage != null ? mRetryCountdownMessage : mErrorMessage;
+	}
+
+	// follows the requested state: ends the retry in flight and schedules the next one while the error is shown
+	private void updateRetry() {
+		if (mOnRetryListener == null) return;
+		boolean contentEmpty = isHostEmpty();
+		if (mRetryInFlight) {
+			if (mEmptyType == TYPE_LOADING && contentEmpty) return;
+			finishRetry(mEmptyType != TYPE_ERROR);
+		}
+		if (mEmptyType == TYPE_ERROR && contentEmpty) {
+			if (mRetryAllowedAt != 0) return;
+			// the backoff is counted from when the error is shown
+			long now = SystemClock.uptimeMillis();
+			mRetryAllowedAt = now + mRetryPolicy.getDelay(mRetryAttempt + 1);
+			if (mRetryAttempt < mRetryPolicy.getMaxAutoRetries()) scheduleRetry(true);
+			return;
+		}
+		// the list was loaded some other way
+		if (mEmptyType == TYPE_EMPTY || !contentEmpty) mRetryAttempt = 0;
+		cancelRetry();
+	}
+
+	private void scheduleRetry(boolean automatic) {
+		mRetryPendingAt = Math.max(mRetryAllowedAt, 1);
+		mRetryPendingAutomatic = automatic;
+		mHandler.removeCallbacks(mRetryCountdownRunnable);
+		// posted, so the countdown replaces the message once the error layout is shown
+		mHandler.post(mRetryCountdownRunnable);
+	}
+
+	private void cancelRetry() {
+		mHandler.removeCallbacks(mRetryCountdownRunnable);
+		mRetryPendingAt = 0;
+		mRetryAllowedAt = 0;
+		setRetryCountdownMessage(null);
+	}
+
+	private void updateRetryCountdown() {
+		if (mRetryPendingAt == 0) return;
+		long now = SystemClock.uptimeMillis();
+		if (now >= mRetryPendingAt) {
+			startRetry(mRetryPendingAutomatic);
+			return;
+		}
+		int seconds = (int) ((mRetryPendingAt - now + 999) / 1000);
+		CharSequence countdown = mContext.getString(R.string.retry_countdown, seconds);
+		setRetryCountdownMessage(mErrorMessage != null ? TextUtils.concat(mErrorMessage, "\n", countdown) : countdown);
+		// ticks when the shown number of seconds changes
+		mHandler.postAtTime(mRetryCountdownRunnable, mRetryPendingAt - (seconds - 1) * 1000L);
+	}
+
+	private void setRetryCountdownMessage(CharSequence countdownMessage) {
+		if (countdownMessage == mRetryCountdownMessage) return;
+		mRetryCountdownMessage = countdownMessage;
+		// only the message view is changed, not the whole state
+		CharSequence message = getShownErrorMessage();
+		if (message == null) return;
+		if (mFlatRendering) {
+			if (mStateView != null && mShownType == TYPE_ERROR) mStateView.setMessage(message);
+		}
+		else if (mErrorView != null && mErrorMessageViewId > 0) {
+			getErrorViewHolder().setMessage(mErrorMessageViewId, message);
+		}
+	}
+
+	private void startRetry(boolean automatic) {
+		cancelRetry();
+		mRetryInFlight = true;
+		mRetryAutomatic = automatic;
+		mRetryAttempt++;
+		mRetryStartedAt = SystemClock.uptimeMillis();
+		showLoading();
+		mOnRetryListener.onRetry(this, mRetryAttempt);
+	}
+
+	private void finishRetry(boolean succeeded) {
+		mRetryInFlight = false;
+		Metrics metrics = mMetrics;
+		if (metrics instanceof RetryMetrics) ((RetryMetrics) metrics).onRetryFinished(this, mRetryAttempt, mRetryAutomatic, succeeded, SystemClock.uptimeMillis() - mRetryStartedAt);
+		if (succeeded) mRetryAttempt = 0;
+	}
+
+	// ---------------------------
+	// footer
+	// ---------------------------
+
+	private void attachFooter() {
+		if (mListView == null || (mFooterContainer != null && mFooterListView == mListView)) return;
+		detachFooter();
+		mFooterListView = mListView;
+		mFooterContainer = new FrameLayout(mContext);
+		mFooterContainer.setLayoutParams(new AbsListView.LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.WRAP_CONTENT));
+		ListAdapter adapter = mFooterListView.getAdapter();
+		mFooterListView.addFooterView(mFooterContainer, null, false);
+		// before KitKat (19) a footer added after the adapter is only shown once the adapter is set again
+		if (Build.VERSION.SDK_INT < 19 && adapter != null && !(adapter instanceof HeaderViewListAdapter)) {
+			int position = mFooterListView.getFirstVisiblePosition();
+			View first = mFooterListView.getChildAt(0);
+			mFooterListView.setAdapter(adapter);
+			mFooterListView.setSelectionFromTop(position, first != null ? first.getTop() : 0);
+		}
+		ViewTreeObserver observer = mFooterListView.getViewTreeObserver();
+		observer.addOnScrollChangedListener(mFooterScrollListener);
+		observer.addOnGlobalLayoutListener(mFooterLayoutListener);
+		// the adapter is observed to hide the loading footer when the page arrives
+		if (!mViewsAdded && mHost != null) {
+			mHost.startObserving(mHostListener);
+			mViewsAdded = true;
+		}
+	}
+	
+	@SuppressWarnings("deprecation")
+	private void detachFooter() {
+		if (mFooterListView == null) return;
+		if (mFooterLoadingView != null) mFooterLoadingView.clearAnimation();
+		ViewTreeObserver observer = mFooterListView.getViewTreeObserver();
+		if (observer.isAlive()) {
+			observer.removeOnScrollChangedListener(mFooterScrollListener);
+			observer.removeGlobalOnLayoutListener(mFooterLayoutListener);
+		}
+		mFooterListView.removeFooterView(mFooterContainer);
+		mHandler.removeCallbacks(mLoadMoreRunnable);
+		mLoadMorePosted = false;
+		mFooterListView = null;
+		mFooterContainer = null;
+		mFooterLoadingView = null;
+		mFooterErrorView = null;
+		mFooterLoadingViewHolder = null;
+		mFooterErrorViewHolder = null;
+		mFooterType = 0;
+		mLoadMoreItemCount = -1;
+	}
+	
+	private void setFooterType(int footerType) {
+		if (footerType == 0 && mFooterContainer == null) return;
+		attachFooter();
+		if (mFooterContainer == null) return;
+		mFooterType = footerType;
+		if (footerType == TYPE_LOADING) {
+			if (mFooterLoadingView == null) {
+				int res = mLoadingViewRes > 0 ? mLoadingViewRes : R.layout.view_loading;
+				mFooterLoadingView = addFooterStateView(res);
+				mFooterLoadingViewHolder = new StateViewHolder(mFooterLoadingView);
+			}
+			updateFooterStateView(mFooterLoadingViewHolder, mLoadingViewRes, mLoadingMessageViewId, mLoadingMessage, mLoadingViewButtonId, mShowLoadingButton ? mLoadingButtonClickListener : null);
+		}
+		if (footerType == TYPE_ERROR) {
+			if (mFooterErrorView == null) {
+				int res = mErrorViewRes > 0 ? mErrorViewRes : R.layout.view_error;
+				mFooterErrorView = addFooterStateView(res);
+				mFooterErrorViewHolder = new StateViewHolder(mFooterErrorView);
+			}
+			updateFooterStateView(mFooterErrorViewHolder, mErrorViewRes, mErrorMessageViewId, mErrorMessage, mErrorViewButtonId, mShowErrorButton ? mFooterRetryListener : null);
+		}
+		if (mFooterErrorView != null) mFooterErrorView.setVisibility(footerType == TYPE_ERROR ? View.VISIBLE : View.GONE);
+		if (mFooterLoadingView != null) {
+			View animationView = mFooterLoadingViewHolder.getAnimationView(mLoadingViewRes > 0 && mLoadingViewRes != R.layout.view_loading ? mLoadingAnimationViewId : R.id.imageViewLoading);
+			if (footerType == TYPE_LOADING) {
+				mFooterLoadingView.setVisibility(View.VISIBLE);
+				if (animationView != null) {
+					// the footer has its own animation since it may be on screen together with the loading layout
+					if (mFooterAnimation == null) mFooterAnimation = createRotateAnimation();
+					animationView.startAnimation(mFooterAnimation);
+				}
+			}
+			else {
+				mFooterLoadingView.setVisibility(View.GONE);
+				if (animationView != null) animationView.clearAnimation();
+			}
+		}
+	}
+	
+	private ViewGroup addFooterStateView(int res) {
+		ViewGroup view = inflateStateView(res);
+		mFooterContainer.addView(view, new FrameLayout.LayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT, Gravity.CENTER_HORIZONTAL));
+		return view;
+	}
+	
+	private static void updateFooterStateView(StateViewHolder holder, int res, int messageViewId, CharSequence message, int buttonId, View.OnClickListener buttonClickListener) {
+		// the default layouts are used when the list's layouts were set as views, which can't be shown twice
+		if (res <= 0 || messageViewId <= 0) messageViewId = R.id.textViewMessage;
+		if (message != null) holder.setMessage(messageViewId, message);
+		View button = buttonId > 0 ? holder.getButton(buttonId) : null;
+		if (button == null) return;
+		button.setOnClickListener(buttonClickListener);
+		button.setVisibility(buttonClickListener != null ? View.VISIBLE : View.GONE);
+	}
+	
+	private void checkPrefetchDistance() {
+		if (mOnLoadMoreListener == null || mFooterListView == null || mHost == null || mLoadMorePosted) return;
+		// after an error the next page is only asked for again by the retry button
+		if (mFooterType != 0 || !mHasMore) return;
+		int itemCount = mHost.getItemCount();
+		if (itemCount == 0 || itemCount == mLoadMoreItemCount) return;
+		int lastVisibleItem = mFooterListView.getLastVisiblePosition() - mFooterListView.getHeaderViewsCount();
+		if (lastVisibleItem < 0 || itemCount - 1 - lastVisibleItem > mPrefetchDistance) return;
+		// not called from within the scroll or layout pass, since the listener may change the adapter
+		mLoadMorePosted = true;
+		mHandler.post(mLoadMoreRunnable);
+	}
+	
+	private void loadMore() {
+		if (mOnLoadMoreListener == null || mHost == null || !mHasMore) return;
+		showFooterLoading();
+		mLoadMoreItemCount = mHost.getItemCount();
+		mOnLoadMoreListener.onLoadMore(this);
+	}
+	
 
 	// ---------------------------
 	// public methods
 	// ---------------------------
 	
+	/**
+	 * Inflates the default loading, empty and error layouts on a background thread, e.g. in <code>Application.onCreate()</code>.
+	 * The first state change of any EmptyLayout then uses these layouts instead of inflating them on the UI thread.
+	 * Works on every API level, the prewarmed layouts are only dropped when memory runs low on API 14 and above.
+	 * @param context any context of the app
+	 */
+	public static void prewarm(Context context) {
+		prewarm(context, 0, R.layout.view_loading, R.layout.view_empty, R.layout.view_error);
+	}
+	
+	/**
+	 * Inflates layouts on a background thread, so that {@link #setLoadingViewRes(int)}, {@link #setEmptyViewRes(int)}, {@link #setErrorViewRes(int)}
+	 * and the first state change can use them instead of inflating them on the UI thread.
+	 * @param context any context of the app
+	 * @param themeRes the theme the layouts are inflated with, or 0 to use the theme of the application. Must match the theme given to {@link #setStateViewPool(StateViewPool, int)} if a pool is used.
+	 * @param layoutRes the resources of the layouts
+	 */
+	public static void prewarm(Context context, int themeRes, int... layoutRes) {
+		StateViewPool.getDefault(context).prewarm(context, themeRes, layoutRes);
+	}
+	
 	/**
 	 * Constructor
 	 * @param context the context (preferred context is any activity)
@@ -581,6 +2385,14 @@ public class EmptyLayout {
 	public EmptyLayout(Context context) {
 		mContext = context;
 		mInflater = (LayoutInflater) mContext.getSystemService(Context.LAYOUT_INFLATER_SERVICE);
+		EmptyLayoutConfig config = sDefaultConfig;
+		if (config != null) {
+			setConfig(config);
+			return;
+		}
+		mErrorMessage = mContext.getText(R.string.error_message);
+		mEmptyMessage = mContext.getText(R.string.empty_message);
+		mLoadingMessage = mContext.getText(R.string.loading_message);
 	}
 	
 	/**
@@ -589,18 +2401,182 @@ public class EmptyLayout {
 	 * @param listView the list view for which this library is being used
 	 */
 	public EmptyLayout(Context context, ListView listView) {
-		mContext = context;
-		mInflater = (LayoutInflater) mContext.getSystemService(Context.LAYOUT_INFLATER_SERVICE);
-		mListView = listView;
+		this(context);
+		setListView(listView);
+	}
+	
+	/**
+	 * Constructor
+	 * @param context the context (preferred context is any activity)
+	 * @param host the view whose content is replaced by the state layouts while it is empty, e.g. {@link StateHost#of(android.widget.AdapterView)} or {@link StateHost#of(ViewGroup)}
+	 */
+	public EmptyLayout(Context context, StateHost host) {
+		this(context);
+		setHost(host);
+	}
+	
+	
+	/**
+	 * Removes the state layouts from the list view's parent and shows the list view again. If a {@link StateViewPool} is set, the layouts inflated from a resource are given back to it so another instance can reuse them.
+	 * The layouts are added again on the next state change.
+	 */
+	public void recycleStateViews() {
+		mStateViewsDirty = true;
+		resetTransition(mEmptyView);
+		resetTransition(mLoadingView);
+		resetTransition(mErrorView);
+		resetTransition(mStateView);
+		resetTransition(mSkeletonView);
+		if (mLoadingView != null) {
+			stopLoadingAnimation();
+			mLoadingViewHolder = null;
+		}
+		mEmptyView = recycleStateView(mEmptyView, mEmptyViewRes);
+		mLoadingView = recycleStateView(mLoadingView, mLoadingViewRes);
+		mErrorView = recycleStateView(mErrorView, mErrorViewRes);
+		if (mStateView != null) {
+			mStateView.setSpinning(false);
+			if (mStateView.getParent() instanceof ViewGroup) ((ViewGroup) mStateView.getParent()).removeView(mStateView);
+		}
+		if (mSkeletonView != null && mSkeletonView.getParent() instanceof ViewGroup) ((ViewGroup) mSkeletonView.getParent()).removeView(mSkeletonView);
+		if (mShownType != 0) onShownTypeChanged(0);
+		mHandler.removeCallbacks(mDelayedLoadingRunnable);
+		mHandler.removeCallbacks(mMinShowTimeRunnable);
+		mLoadingRequestedAt = 0;
+		if (mViewsAdded && mHost != null) {
+			mHost.stopObserving();
+			mHost.getContentView().setVisibility(View.VISIBLE);
+		}
+		mViewsAdded = false;
+	}
+	
+	/**
+	 * Releases everything this empty layout holds on to, so it can't keep an activity alive, e.g. from <code>onDestroy()</code> or when a presenter outlives its view.
+	 * The state layouts are removed, animations and pending changes are cancelled, the list and the click listeners are dropped and the context is replaced by the application context.
+	 * Nothing is shown by this empty layout anymore after it is released.
+	 */
+	public void release() {
+		if (mReleased) return;
+		unbindFromActivity();
+		setStateSource(null);
+		recycleStateViews();
+		detachFooter();
+		stopLoadingAnimation();
+		cancelScheduledChange();
+		mPostedState.set(null);
+		mHandler.removeCallbacks(mApplyPostedStateRunnable);
+		setOnRetryListener(null);
+		mReleased = true;
+
+		mLoadingView = null;
+		mEmptyView = null;
+		mErrorView = null;
+		mLoadingViewHolder = null;
+		mEmptyViewHolder = null;
+		mErrorViewHolder = null;
+		mStateView = null;
+		mSkeletonView = null;
+		mHost = null;
+		mListView = null;
+		mLoadingAnimation = null;
+		mLoadingButtonClickListener = null;
+		mEmptyButtonClickListener = null;
+		mErrorButtonClickListener = null;
+		mOnLoadMoreListener = null;
+		mMetrics = null;
+		mRetainedViews = null;
+		mContext = mContext.getApplicationContext();
+		mInflater = LayoutInflater.from(mContext);
+	}
+	
+	/**
+	 * Gets if {@link #release()} has been called
+	 * @return if this empty layout is released
+	 */
+	public boolean isReleased() {
+		return mReleased;
+	}
+	
+	/**
+	 * Releases this empty layout automatically when the activity is destroyed. Neither the activity nor this empty layout is kept alive by the binding. Only used on API 14 and above,
+	 * call {@link #release()} from <code>onDestroy()</code> on older versions.
+	 * @param activity the activity which shows the list
+	 */
+	public void bindToActivity(Activity activity) {
+		if (Build.VERSION.SDK_INT < Build.VERSION_CODES.ICE_CREAM_SANDWICH || mReleased) return;
+		unbindFromActivity();
+		mBoundApplication = activity.getApplication();
+		ReleaseOnDestroyCallbacks callbacks = new ReleaseOnDestroyCallbacks(mBoundApplication, activity, this);
+		mBoundApplication.registerActivityLifecycleCallbacks(callbacks);
+		mLifecycleCallbacks = callbacks;
+	}
+	
+	/**
+	 * Saves the state, the messages and the button visibility, e.g. from <code>onSaveInstanceState()</code> of the activity
+	 * @param outState the bundle the state is saved in
+	 */
+	public void onSaveInstanceState(Bundle outState) {
+		outState.putInt(STATE_EMPTY_TYPE, mEmptyType);
+		outState.putCharSequence(STATE_EMPTY_MESSAGE, mEmptyMessage);
+		outState.putCharSequence(STATE_LOADING_MESSAGE, mLoadingMessage);
+		outState.putCharSequence(STATE_ERROR_MESSAGE, mErrorMessage);
+		outState.putBoolean(STATE_SHOW_EMPTY_BUTTON, mShowEmptyButton);
+		outState.putBoolean(STATE_SHOW_LOADING_BUTTON, mShowLoadingButton);
+		outState.putBoolean(STATE_SHOW_ERROR_BUTTON, mShowErrorButton);
+	}
+	
+	/**
+	 * Restores the state saved by {@link #onSaveInstanceState(Bundle)} and shows it, instead of calling one of the <code>show...()</code> methods.
+	 * Set the click listeners and the layouts before, since they are not saved.
+	 * @param savedInstanceState the bundle the state was saved in, may be null
+	 */
+	public void onRestoreInstanceState(Bundle savedInstanceState) {
+		if (savedInstanceState == null || !savedInstanceState.containsKey(STATE_EMPTY_TYPE)) return;
+		mEmptyType = savedInstanceState.getInt(STATE_EMPTY_TYPE, mEmptyType);
+		mEmptyMessage = savedInstanceState.getCharSequence(STATE_EMPTY_MESSAGE);
+		mLoadingMessage = savedInstanceState.getCharSequence(STATE_LOADING_MESSAGE);
+		mErrorMessage = savedInstanceState.getCharSequence(STATE_ERROR_MESSAGE);
+		mShowEmptyButton = savedInstanceState.getBoolean(STATE_SHOW_EMPTY_BUTTON, mShowEmptyButton);
+		mShowLoadingButton = savedInstanceState.getBoolean(STATE_SHOW_LOADING_BUTTON, mShowLoadingButton);
+		mShowErrorButton = savedInstanceState.getBoolean(STATE_SHOW_ERROR_BUTTON, mShowErrorButton);
+		if (mHost != null) requestEmptyTypeChange();
+	}
+	
+	/**
+	 * Takes the state layouts which don't depend on the activity out of this empty layout, so the empty layout created after a configuration change can reuse them
+	 * instead of inflating them again. Return the result from <code>onRetainNonConfigurationInstance()</code> or keep it in a retained fragment, and give it to
+	 * {@link #restoreStateViews(Object)} of the new instance. Only layouts inflated with the application context can be handed over, i.e. layouts taken from a {@link StateViewPool},
+	 * so nothing is retained unless a pool was set with {@link #setStateViewPool(StateViewPool)} before the layouts were created. Layouts inflated with the activity stay
+	 * in this empty layout.
+	 * @return the layouts to hand over, or null if none could be handed over, e.g. when no pool is set
+	 */
+	public Object retainStateViews() {
+		if (mLoadingView != null) stopLoadingAnimation();
+		RetainedStateViews retained = new RetainedStateViews(mContext.getResources().getConfiguration());
+		mEmptyView = retainStateView(retained, mEmptyView, mEmptyViewRes);
+		mLoadingView = retainStateView(retained, mLoadingView, mLoadingViewRes);
+		mErrorView = retainStateView(retained, mErrorView, mErrorViewRes);
+		return retained.views.size() > 0 ? retained : null;
 	}
 	
+	/**
+	 * Reuses the state layouts handed over by {@link #retainStateViews()} of the instance before a configuration change. They are used the next time a layout of the same resource is needed.
+	 * The layouts are dropped if the change can affect the resources, e.g. the orientation, the screen size, the language or the density, so only a change like a slid out keyboard keeps them.
+	 * @param retainedStateViews the result of {@link #retainStateViews()}, may be null
+	 */
+	public void restoreStateViews(Object retainedStateViews) {
+		if (!(retainedStateViews instanceof RetainedStateViews) || mReleased) return;
+		RetainedStateViews retained = (RetainedStateViews) retainedStateViews;
+		if ((retained.configuration.diff(mContext.getResources().getConfiguration()) & ~RETAINABLE_CONFIG_CHANGES) != 0) return;
+		mRetainedViews = retained.views;
+	}
 	
 	/**
 	 * Shows the empty layout if the list is empty
 	 */
 	public void showEmpty() {
 		this.mEmptyType = TYPE_EMPTY;
-		changeEmptyType();
+		requestEmptyTypeChange();
 	}
 
 	/**
@@ -608,7 +2584,7 @@ public class EmptyLayout {
 	 */
 	public void showLoading() {
 		this.mEmptyType = TYPE_LOADING;
-		changeEmptyType();
+		requestEmptyTypeChange();
 	}
 
 	/**
@@ -616,8 +2592,110 @@ public class EmptyLayout {
 	 */
 	public void showError() {
 		this.mEmptyType = TYPE_ERROR;
-		changeEmptyType();
+		requestEmptyTypeChange();
+	}
+	
+	/**
+	 * Asks the {@link OnRetryListener} to reload the list, as if the error button was tapped. Ignored while a retry is in flight or counting down.
+	 * While the error is shown the retry waits for the backoff of the {@link RetryPolicy}, with a countdown in the error message.
+	 */
+	public void retry() {
+		if (mOnRetryListener == null || mReleased) return;
+		// single flight, the retry already made or scheduled is the one the user waits for
+		if (mRetryInFlight || mRetryPendingAt != 0) {
+			mIgnoredRetryCount++;
+			return;
+		}
+		if (mRetryAllowedAt > SystemClock.uptimeMillis()) scheduleRetry(false);
+		else startRetry(false);
+	}
+
+	/**
+	 * Shows the loading layout as the last row of the list, below the items already loaded. Only used with a {@link ListView}.
+	 */
+	public void showFooterLoading() {
+		setFooterType(TYPE_LOADING);
+	}
+	
+	/**
+	 * Shows the error layout as the last row of the list, e.g. when the next page could not be loaded. Its button asks the {@link OnLoadMoreListener} for the page again,
+	 * or calls the error button click listener if no listener is set. Only used with a {@link ListView}.
+	 */
+	public void showFooterError() {
+		setFooterType(TYPE_ERROR);
+	}
+	
+	/**
+	 * Removes the loading or error layout from the end of the list. The loading footer is also hidden when the adapter gets new items.
+	 */
+	public void hideFooter() {
+		setFooterType(0);
+	}
+	
+	/**
+	 * Hides the loading footer after a page asked for by the {@link OnLoadMoreListener} was loaded. Call it after the items of the page were added,
+	 * also when the page was empty.
+	 * @param hasMore false if this was the last page, see {@link #setHasMore(boolean)}
+	 */
+	public void onLoadMoreFinished(boolean hasMore) {
+		if (mFooterType == TYPE_LOADING) hideFooter();
+		setHasMore(hasMore);
+	}
+	
+	/**
+	 * Shows the empty layout if the list is empty. Can be called from any thread.
+	 * When several states are posted before the UI thread gets to them only the last one is shown, the messages posted with the others are still set.
+	 */
+	public void postEmpty() {
+		postState(TYPE_EMPTY, null, false);
+	}
+	
+	/**
+	 * Shows the empty layout with a new message if the list is empty. Can be called from any thread.
+	 * @param emptyMessage the message
+	 */
+	public void postEmpty(CharSequence emptyMessage) {
+		postState(TYPE_EMPTY, emptyMessage, true);
+	}
+
+	/**
+	 * Shows loading layout if the list is empty. Can be called from any thread.
+	 * When several states are posted before the UI thread gets to them only the last one is shown, the messages posted with the others are still set.
+	 */
+	public void postLoading() {
+		postState(TYPE_LOADING, null, false);
+	}
+	
+	/**
+	 * Shows loading layout with a new message if the list is empty. Can be called from any thread.
+	 * @param loadingMessage the message
+	 */
+	public void postLoading(CharSequence loadingMessage) {
+		postState(TYPE_LOADING, loadingMessage, true);
+	}
+
+	/**
+	 * Shows error layout if the list is empty. Can be called from any thread.
+	 * When several states are posted before the UI thread gets to them only the last one is shown, the messages posted with the others are still set.
+	 */
+	public void postError() {
+		postState(TYPE_ERROR, null, false);
+	}
+	
+	/**
+	 * Shows error layout with a new message if the list is empty. Can be called from any thread.
+	 * @param errorMessage the error message
+	 */
+	public void postError(CharSequence errorMessage) {
+		postState(TYPE_ERROR, errorMessage, true);
 	}
 	
+	/**
+	 * Sets the state of the empty view of the list view. Can be called from any thread.
+	 * @param emptyType loading or empty or error
+	 */
+	public void postEmptyType(int emptyType) {
+		postState(emptyType, null, false);
+	}
 	
 }
@@ -0,0 +1,541 @@
+package com.kanak.emptylayout;
+
+import android.content.Context;
+import android.text.Spanned;
+import android.text.SpannedString;
+
+/**
+ * The settings shared by the {@link EmptyLayout}s of an app, built once, e.g. in <code>Application.onCreate()</code>, and given to
+ * {@link EmptyLayout#setDefaultConfig(EmptyLayoutConfig)} so every new empty layout starts with them instead of repeating the same setter calls on every screen.
+ * The messages are resolved from their resources when the config is built, and layouts and animations are only kept as resources,
+ * so an empty layout inflates or loads them when it first needs them. The settings of a config can't be changed and its messages are copied when it is built,
+ * so it can be read from any thread. The {@link StateViewPool} it holds is shared by every empty layout the config is given to: the pool itself is synchronized,
+ * but its layouts are only used on the UI thread. Build the config again when the locale changes, since the messages are resolved in the locale of the time.
+ */
+public final class EmptyLayoutConfig {
+
+	private final int mLoadingViewRes;
+	private final int mEmptyViewRes;
+	private final int mErrorViewRes;
+	private final int mLoadingMessageViewId;
+	private final int mEmptyMessageViewId;
+	private final int mErrorMessageViewId;
+	private final int mLoadingAnimationViewId;
+	private final int mLoadingAnimationRes;
+	private final CharSequence mLoadingMessage;
+	private final CharSequence mEmptyMessage;
+	private final CharSequence mErrorMessage;
+	private final boolean mShowLoadingButton;
+	private final boolean mShowEmptyButton;
+	private final boolean mShowErrorButton;
+	private final boolean mLazyInflation;
+	private final boolean mCoalesceChanges;
+	private final boolean mFlatRendering;
+	private final boolean mHardwareLoadingAnimation;
+	private final boolean mAnimateTransitions;
+	private final long mTransitionDuration;
+	private final long mLoadingShowDelay;
+	private final long mLoadingMinShowTime;
+	private final StateViewPool mStateViewPool;
+	private final int mStateViewTheme;
+	private final RetryPolicy mRetryPolicy;
+
+	private EmptyLayoutConfig(Builder builder) {
+		mLoadingViewRes = builder.mLoadingViewRes;
+		mEmptyViewRes = builder.mEmptyViewRes;
+		mErrorViewRes = builder.mErrorViewRes;
+		mLoadingMessageViewId = builder.mLoadingMessageViewId;
+		mEmptyMessageViewId = builder.mEmptyMessageViewId;
+		mErrorMessageViewId = builder.mErrorMessageViewId;
+		mLoadingAnimationViewId = builder.mLoadingAnimationViewId;
+		mLoadingAnimationRes = builder.mLoadingAnimationRes;
+		// the default messages are resolved here once instead of by every empty layout
+		mLoadingMessage = copy(builder.mLoadingMessage != null ? builder.mLoadingMessage : builder.mContext.getText(R.string.loading_message));
+		mEmptyMessage = copy(builder.mEmptyMessage != null ? builder.mEmptyMessage : builder.mContext.getText(R.string.empty_message));
+		mErrorMessage = copy(builder.mErrorMessage != null ? builder.mErrorMessage : builder.mContext.getText(R.string.error_message));
+		mShowLoadingButton = builder.mShowLoadingButton;
+		mShowEmptyButton = builder.mShowEmptyButton;
+		mShowErrorButton = builder.mShowErrorButton;
+		mLazyInflation = builder.mLazyInflation;
+		mCoalesceChanges = builder.mCoalesceChanges;
+		mFlatRendering = builder.mFlatRendering;
+		mHardwareLoadingAnimation = builder.mHardwareLoadingAnimation;
+		mAnimateTransitions = builder.mAnimateTransitions;
+		mTransitionDuration = builder.mTransitionDuration;
+		mLoadingShowDelay = builder.mLoadingShowDelay;
+		mLoadingMinShowTime = builder.mLoadingMinShowTime;
+		mStateViewPool = builder.mStateViewPool;
+		mStateViewTheme = builder.mStateViewTheme;
+		mRetryPolicy = builder.mRetryPolicy;
+	}
+
+	private static CharSequence copy(CharSequence message) {
+		// the caller may change a styled message in place later, e.g. a SpannableStringBuilder
+		if (message instanceof Spanned) return new SpannedString(message);
+		return message.toString();
+	}
+
+	// ---------------------------
+	// builder
+	// ---------------------------
+	/**
+	 * Collects the settings of a config. The setters have the same meaning as the ones of {@link EmptyLayout}, anything not set keeps the default of EmptyLayout.
+	 * A builder is meant to be used by one thread.
+	 */
+	public static final class Builder {
+		private final Context mContext;
+		private int mLoadingViewRes;
+		private int mEmptyViewRes;
+		private int mErrorViewRes;
+		private int mLoadingMessageViewId;
+		private int mEmptyMessageViewId;
+		private int mErrorMessageViewId;
+		private int mLoadingAnimationViewId;
+		private int mLoadingAnimationRes;
+		private CharSequence mLoadingMessage;
+		private CharSequence mEmptyMessage;
+		private CharSequence mErrorMessage;
+		private boolean mShowLoadingButton = true;
+		private boolean mShowEmptyButton = true;
+		private boolean mShowErrorButton = true;
+		private boolean mLazyInflation = false;
+		private boolean mCoalesceChanges = false;
+		private boolean mFlatRendering = false;
+		private boolean mHardwareLoadingAnimation = false;
+		private boolean mAnimateTransitions = false;
+		private long mTransitionDuration = 200;
+		private long mLoadingShowDelay = 0;
+		private long mLoadingMinShowTime = 0;
+		private StateViewPool mStateViewPool;
+		private int mStateViewTheme;
+		private RetryPolicy mRetryPolicy = RetryPolicy.DEFAULT;
+
+		/**
+		 * Constructor
+		 * @param context any context of the app, only its application context is used
+		 */
+		public Builder(Context context) {
+			mContext = context.getApplicationContext();
+		}
+
+		/**
+		 * Sets the loading layout resource, see {@link EmptyLayout#setLoadingViewRes(int)}
+		 * @param res the layout resource
+		 * @param messageViewId the id of the text view within the layout which shows the message
+		 * @param animationViewId the id of the view within the layout which is animated, or 0 for none
+		 * @return this builder
+		 */
+		public Builder setLoadingViewRes(int res, int messageViewId, int animationViewId) {
+			mLoadingViewRes = res;
+			mLoadingMessageViewId = messageViewId;
+			mLoadingAnimationViewId = animationViewId;
+			return this;
+		}
+
+		/**
+		 * Sets the empty layout resource, see {@link EmptyLayout#setEmptyViewRes(int)}
+		 * @param res the layout resource
+		 * @param messageViewId the id of the text view within the layout which shows the message
+		 * @return this builder
+		 */
+		public Builder setEmptyViewRes(int res, int messageViewId) {
+			mEmptyViewRes = res;
+			mEmptyMessageViewId = messageViewId;
+			return this;
+		}
+
+		/**
+		 * Sets the error layout resource, see {@link EmptyLayout#setErrorViewRes(int)}
+		 * @param res the layout resource
+		 * @param messageViewId the id of the text view within the layout which shows the message
+		 * @return this builder
+		 */
+		public Builder setErrorViewRes(int res, int messageViewId) {
+			mErrorViewRes = res;
+			mErrorMessageViewId = messageViewId;
+			return this;
+		}
+
+		/**
+		 * Sets the resource of the loading animation, see {@link EmptyLayout#setLoadingAnimationRes(int)}
+		 * @param animationRes the animation resource
+		 * @return this builder
+		 */
+		public Builder setLoadingAnimationRes(int animationRes) {
+			mLoadingAnimationRes = animationRes;
+			return this;
+		}
+
+		/**
+		 * Sets the message shown while the list is loading
+		 * @param message the message
+		 * @return this builder
+		 */
+		public Builder setLoadingMessage(CharSequence message) {
+			mLoadingMessage = message;
+			return this;
+		}
+
+		/**
+		 * Sets the message shown while the list is loading
+		 * @param messageRes the string resource of the message
+		 * @return this builder
+		 */
+		public Builder setLoadingMessage(int messageRes) {
+			return setLoadingMessage(mContext.getText(messageRes));
+		}
+
+		/**
+		 * Sets the message shown when the list has no items
+		 * @param message the message
+		 * @return this builder
+		 */
+		public Builder setEmptyMessage(CharSequence message) {
+			mEmptyMessage = message;
+			return this;
+		}
+
+		/**
+		 * Sets the message shown when the list has no items
+		 * @param messageRes the string resource of the message
+		 * @return this builder
+		 */
+		public Builder setEmptyMessage(int messageRes) {
+			return setEmptyMessage(mContext.getText(messageRes));
+		}
+
+		/**
+		 * Sets the message shown when the list could not be loaded
+		 * @param message the message
+		 * @return this builder
+		 */
+		public Builder setErrorMessage(CharSequence message) {
+			mErrorMessage = message;
+			return this;
+		}
+
+		/**
+		 * Sets the message shown when the list could not be loaded
+		 * @param messageRes the string resource of the message
+		 * @return this builder
+		 */
+		public Builder setErrorMessage(int messageRes) {
+			return setErrorMessage(mContext.getText(messageRes));
+		}
+
+		/**
+		 * Sets which states show a button
+		 * @param showLoadingButton will the loading layout show a button
+		 * @param showEmptyButton will the empty layout show a button
+		 * @param showErrorButton will the error layout show a button
+		 * @return this builder
+		 */
+		public Builder setShowButtons(boolean showLoadingButton, boolean showEmptyButton, boolean showErrorButton) {
+			mShowLoadingButton = showLoadingButton;
+			mShowEmptyButton = showEmptyButton;
+			mShowErrorButton = showErrorButton;
+			return this;
+		}
+
+		/**
+		 * Sets if the state layouts will be inflated lazily, see {@link EmptyLayout#setLazyInflation(boolean)}
+		 * @param lazyInflation will the state layouts be inflated lazily
+		 * @return this builder
+		 */
+		public Builder setLazyInflation(boolean lazyInflation) {
+			mLazyInflation = lazyInflation;
+			return this;
+		}
+
+		/**
+		 * Sets if state changes will be coalesced, see {@link EmptyLayout#setCoalesceChanges(boolean)}
+		 * @param coalesceChanges will state changes be coalesced
+		 * @return this builder
+		 */
+		public Builder setCoalesceChanges(boolean coalesceChanges) {
+			mCoalesceChanges = coalesceChanges;
+			return this;
+		}
+
+		/**
+		 * Sets if flat rendering will be used, see {@link EmptyLayout#setFlatRendering(boolean)}
+		 * @param flatRendering will flat rendering be used
+		 * @return this builder
+		 */
+		public Builder setFlatRendering(boolean flatRendering) {
+			mFlatRendering = flatRendering;
+			return this;
+		}
+
+		/**
+		 * Sets if the hardware loading animation will be used, see {@link EmptyLayout#setHardwareLoadingAnimation(boolean)}
+		 * @param hardwareLoadingAnimation will the hardware loading animation be used
+		 * @return this builder
+		 */
+		public Builder setHardwareLoadingAnimation(boolean hardwareLoadingAnimation) {
+			mHardwareLoadingAnimation = hardwareLoadingAnimation;
+			return this;
+		}
+
+		/**
+		 * Sets if transitions will be animated, see {@link EmptyLayout#setAnimateTransitions(boolean)}
+		 * @param animateTransitions will transitions be animated
+		 * @param transitionDuration the duration of a transition in milliseconds
+		 * @return this builder
+		 */
+		public Builder setAnimateTransitions(boolean animateTransitions, long transitionDuration) {
+			if (transitionDuration < 0) throw new IllegalArgumentException("transitionDuration < 0");
+			mAnimateTransitions = animateTransitions;
+			mTransitionDuration = transitionDuration;
+			return this;
+		}
+
+		/**
+		 * Sets the show delay and the minimum show time of the loading state, see {@link EmptyLayout#setLoadingShowDelay(long)} and {@link EmptyLayout#setLoadingMinShowTime(long)}
+		 * @param loadingShowDelay the delay in milliseconds
+		 * @param loadingMinShowTime the minimum show time in milliseconds
+		 * @return this builder
+		 */
+		public Builder setLoadingTimes(long loadingShowDelay, long loadingMinShowTime) {
+			if (loadingShowDelay < 0) throw new IllegalArgumentException("loadingShowDelay < 0");
+			if (loadingMinShowTime < 0) throw new IllegalArgumentException("loadingMinShowTime < 0");
+			mLoadingShowDelay = loadingShowDelay;
+			mLoadingMinShowTime = loadingMinShowTime;
+			return this;
+		}
+
+		/**
+		 * Sets the pool the state layouts are taken from, see {@link EmptyLayout#setStateViewPool(StateViewPool, int)}
+		 * @param stateViewPool the pool or null
+		 * @param themeRes the theme pooled layouts are inflated with, or 0 to use the theme of the application
+		 * @return this builder
+		 */
+		public Builder setStateViewPool(StateViewPool stateViewPool, int themeRes) {
+			mStateViewPool = stateViewPool;
+			mStateViewTheme = themeRes;
+			return this;
+		}
+
+		/**
+		 * Sets how retries are spaced out, see {@link EmptyLayout#setRetryPolicy(RetryPolicy)}
+		 * @param retryPolicy the retry policy
+		 * @return this builder
+		 */
+		public Builder setRetryPolicy(RetryPolicy retryPolicy) {
+			if (retryPolicy == null) throw new IllegalArgumentException("retryPolicy == null");
+			mRetryPolicy = retryPolicy;
+			return this;
+		}
+
+		/**
+		 * Creates the config
+		 * @return the config
+		 */
+		public EmptyLayoutConfig build() {
+			return new EmptyLayoutConfig(this);
+		}
+	}
+
+	// ---------------------------
+	// getters
+	// ---------------------------
+	/**
+	 * Gets the loading layout resource
+	 * @return the layout resource or 0 for the default layout
+	 */
+	public int getLoadingViewRes() {
+		return mLoadingViewRes;
+	}
+
+	/**
+	 * Gets the empty layout resource
+	 * @return the layout resource or 0 for the default layout
+	 */
+	public int getEmptyViewRes() {
+		return mEmptyViewRes;
+	}
+
+	/**
+	 * Gets the error layout resource
+	 * @return the layout resource or 0 for the default layout
+	 */
+	public int getErrorViewRes() {
+		return mErrorViewRes;
+	}
+
+	/**
+	 * Gets the id of the text view within the loading layout which shows the message
+	 * @return the id or 0 for the default layout
+	 */
+	public int getLoadingMessageViewId() {
+		return mLoadingMessageViewId;
+	}
+
+	/**
+	 * Gets the id of the text view within the empty layout which shows the message
+	 * @return the id or 0 for the default layout
+	 */
+	public int getEmptyMessageViewId() {
+		return mEmptyMessageViewId;
+	}
+
+	/**
+	 * Gets the id of the text view within the error layout which shows the message
+	 * @return the id or 0 for the default layout
+	 */
+	public int getErrorMessageViewId() {
+		return mErrorMessageViewId;
+	}
+
+	/**
+	 * Gets the id of the view within the loading layout which is animated
+	 * @return the id or 0
+	 */
+	public int getLoadingAnimationViewId() {
+		return mLoadingAnimationViewId;
+	}
+
+	/**
+	 * Gets the resource of the loading animation
+	 * @return the animation resource or 0 for the default animation
+	 */
+	public int getLoadingAnimationRes() {
+		return mLoadingAnimationRes;
+	}
+
+	/**
+	 * Gets the message shown while the list is loading
+	 * @return the message
+	 */
+	public CharSequence getLoadingMessage() {
+		return mLoadingMessage;
+	}
+
+	/**
+	 * Gets the message shown when the list has no items
+	 * @return the message
+	 */
+	public CharSequence getEmptyMessage() {
+		return mEmptyMessage;
+	}
+
+	/**
+	 * Gets the message shown when the list could not be loaded
+	 * @return the message
+	 */
+	public CharSequence getErrorMessage() {
+		return mErrorMessage;
+	}
+
+	/**
+	 * Gets if the loading layout shows a button
+	 * @return if the button is shown
+	 */
+	public boolean isLoadingButtonShown() {
+		return mShowLoadingButton;
+	}
+
+	/**
+	 * Gets if the empty layout shows a button
+	 * @return if the button is shown
+	 */
+	public boolean isEmptyButtonShown() {
+		return mShowEmptyButton;
+	}
+
+	/**
+	 * Gets if the error layout shows a button
+	 * @return if the button is shown
+	 */
+	public boolean isErrorButtonShown() {
+		return mShowErrorButton;
+	}
+
+	/**
+	 * Gets if the state layouts are inflated lazily
+	 * @return if lazy inflation is used
+	 */
+	public boolean isLazyInflation() {
+		return mLazyInflation;
+	}
+
+	/**
+	 * Gets if state changes are coalesced
+	 * @return if state changes are coalesced
+	 */
+	public boolean isCoalesceChanges() {
+		return mCoalesceChanges;
+	}
+
+	/**
+	 * Gets if flat rendering is used
+	 * @return if flat rendering is used
+	 */
+	public boolean isFlatRendering() {
+		return mFlatRendering;
+	}
+
+	/**
+	 * Gets if the hardware loading animation is used
+	 * @return if the hardware loading animation is used
+	 */
+	public boolean isHardwareLoadingAnimation() {
+		return mHardwareLoadingAnimation;
+	}
+
+	/**
+	 * Gets if transitions are animated
+	 * @return if transitions are animated
+	 */
+	public boolean isAnimateTransitions() {
+		return mAnimateTransitions;
+	}
+
+	/**
+	 * Gets how long a transition takes
+	 * @return the duration in milliseconds
+	 */
+	public long getTransitionDuration() {
+		return mTransitionDuration;
+	}
+
+	/**
+	 * Gets how long the loading state waits before it is shown
+	 * @return the delay in milliseconds
+	 */
+	public long getLoadingShowDelay() {
+		return mLoadingShowDelay;
+	}
+
+	/**
+	 * Gets how long the loading state stays on screen at least
+	 * @return the minimum show time in milliseconds
+	 */
+	public long getLoadingMinShowTime() {
+		return mLoadingMinShowTime;
+	}
+
+	/**
+	 * Gets the pool the state layouts are taken from
+	 * @return the pool or null
+	 */
+	public StateViewPool getStateViewPool() {
+		return mStateViewPool;
+	}
+
+	/**
+	 * Gets the theme pooled layouts are inflated with
+	 * @return the theme resource or 0
+	 */
+	public int getStateViewTheme() {
+		return mStateViewTheme;
+	}
+
+	/**
+	 * Gets how retries are spaced out
+	 * @return the retry policy
+	 */
+	public RetryPolicy getRetryPolicy() {
+		return mRetryPolicy;
+	}
+}
@@ -0,0 +1,44 @@
+package com.kanak.emptylayout;
+
+import android.animation.ObjectAnimator;
+import android.animation.ValueAnimator;
+import android.view.View;
+import android.view.animation.LinearInterpolator;
+
+/**
+ * Spins a view with one property animator which is created once and reused for every loading state.
+ * The view is drawn into a hardware layer while it spins. Requires API 11.
+ */
+class LoadingAnimator {
+
+	private final View mView;
+	private final ObjectAnimator mAnimator;
+
+	LoadingAnimator(View view) {
+		mView = view;
+		mAnimator = ObjectAnimator.ofFloat(view, "rotation", 0f, 360f);
+		mAnimator.setDuration(1500);
+		mAnimator.setInterpolator(new LinearInterpolator());
+		mAnimator.setRepeatCount(ValueAnimator.INFINITE);
+		mAnimator.setRepeatMode(ValueAnimator.RESTART);
+	}
+
+	/**
+	 * Starts spinning the view
+	 */
+	void start() {
+		if (mAnimator.isStarted()) return;
+		mView.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+		mAnimator.start();
+	}
+
+	/**
+	 * Stops spinning the view and turns it back upright, so the next loading state or the next owner of a pooled layout does not start tilted
+	 */
+	void stop() {
+		if (!mAnimator.isStarted()) return;
+		mAnimator.cancel();
+		mView.setRotation(0);
+		mView.setLayerType(View.LAYER_TYPE_NONE, null);
+	}
+}
@@ -0,0 +1,104 @@
+package com.kanak.emptylayout;
+
+import java.util.Random;
+
+/**
+ * How the retries of an {@link EmptyLayout} in the error state are spaced out. Every retry waits longer than the one before, by the multiplier, up to the maximum delay,
+ * and a random part of each delay is dropped, so that many clients which failed at the same time don't all retry at the same time.
+ * Optionally the first retries are made automatically, with a countdown shown in the error message.
+ */
+public class RetryPolicy {
+
+	private final long mInitialDelay;
+	private final long mMaxDelay;
+	private final float mMultiplier;
+	private final float mJitter;
+	private final int mMaxAutoRetries;
+	private final Random mRandom = new Random();
+
+	// ---------------------------
+	// static variables
+	// ---------------------------
+	/**
+	 * The policy used by default: retries wait 1, 2, 4, ... up to 30 seconds, less up to half of it, and are only made when the error button is tapped
+	 */
+	public final static RetryPolicy DEFAULT = new RetryPolicy(1000, 30000, 2, .5f, 0);
+
+	// ---------------------------
+	// public methods
+	// ---------------------------
+
+	/**
+	 * Constructor
+	 * @param initialDelay how long the first retry waits after the error was shown, in milliseconds
+	 * @param maxDelay how long a retry waits at most, in milliseconds
+	 * @param multiplier how much longer every retry waits than the one before, at least 1
+	 * @param jitter the largest part of a delay which is randomly dropped, from 0 for none to 1 for the whole delay
+	 * @param maxAutoRetries how many retries are made without the error button being tapped, or 0 for none
+	 */
+	public RetryPolicy(long initialDelay, long maxDelay, float multiplier, float jitter, int maxAutoRetries) {
+		if (initialDelay < 0) throw new IllegalArgumentException("initialDelay < 0");
+		if (maxDelay < initialDelay) throw new IllegalArgumentException("maxDelay < initialDelay");
+		if (multiplier < 1) throw new IllegalArgumentException("multiplier < 1");
+		if (jitter < 0 || jitter > 1) throw new IllegalArgumentException("jitter not within 0 and 1");
+		if (maxAutoRetries < 0) throw new IllegalArgumentException("maxAutoRetries < 0");
+		mInitialDelay = initialDelay;
+		mMaxDelay = maxDelay;
+		mMultiplier = multiplier;
+		mJitter = jitter;
+		mMaxAutoRetries = maxAutoRetries;
+	}
+
+	/**
+	 * Gets how long a retry waits after the error was shown, with a new random jitter on every call
+	 * @param attempt the number of the retry, starting at 1
+	 * @return the delay in milliseconds
+	 */
+	public long getDelay(int attempt) {
+		double delay = Math.min(mMaxDelay, mInitialDelay * Math.pow(mMultiplier, Math.max(0, attempt - 1)));
+		return Math.round(delay * (1 - mJitter * mRandom.nextDouble()));
+	}
+
+	// ---------------------------
+	// getters
+	// ---------------------------
+	/**
+	 * Gets how long the first retry waits after the error was shown
+	 * @return the initial delay in milliseconds
+	 */
+	public long getInitialDelay() {
+		return mInitialDelay;
+	}
+
+	/**
+	 * Gets how long a retry waits at most
+	 * @return the maximum delay in milliseconds
+	 */
+	public long getMaxDelay() {
+		return mMaxDelay;
+	}
+
+	/**
+	 * Gets how much longer every retry waits than the one before
+	 * @return the multiplier
+	 */
+	public float getMultiplier() {
+		return mMultiplier;
+	}
+
+	/**
+	 * Gets the largest part of a delay which is randomly dropped
+	 * @return the jitter from 0 to 1
+	 */
+	public float getJitter() {
+		return mJitter;
+	}
+
+	/**
+	 * Gets how many retries are made without the error button being tapped
+	 * @return the number of automatic retries
+	 */
+	public int getMaxAutoRetries() {
+		return mMaxAutoRetries;
+	}
+}
@@ -0,0 +1,178 @@
+package com.kanak.emptylayout;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.LinearGradient;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.graphics.Shader;
+import android.support.v4.view.ViewCompat;
+import android.util.DisplayMetrics;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.animation.AnimationUtils;
+import android.widget.FrameLayout;
+import android.widget.TextView;
+
+/**
+ * A single view which draws placeholder rows in the shape of the list's items while the list is loading. Used by {@link EmptyLayout} in skeleton loading mode.
+ * All the rows are drawn with one paint whose gradient shader is moved on every frame, so the shimmer costs one draw pass however many rows are shown.
+ */
+class SkeletonView extends View {
+
+	private static final int SHIMMER_DURATION = 1200;
+	private static final int BASE_COLOR = 0xFFE0E0E0;
+	private static final int HIGHLIGHT_COLOR = 0xFFF5F5F5;
+	private static final float EMPTY_TEXT_WIDTH = .6f;
+
+	private final Paint mPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+	private final Matrix mShaderMatrix = new Matrix();
+	private final RectF mRect = new RectF();
+	private final float mCornerRadius;
+	private final float mDensity;
+	private Shader mShader;
+	private int mRowLayoutRes;
+	private int mRowCount;
+	private int mTemplateWidth = -1;
+	private List<RectF> mTemplate = new ArrayList<RectF>();
+	private int mRowHeight;
+	private long mShimmerStartTime;
+
+	SkeletonView(Context context) {
+		super(context);
+		DisplayMetrics metrics = context.getResources().getDisplayMetrics();
+		mDensity = metrics.density;
+		mCornerRadius = 4 * metrics.density;
+		mRowHeight = Math.round(72 * metrics.density);
+		mShimmerStartTime = AnimationUtils.currentAnimationTimeMillis();
+	}
+
+	// ---------------------------
+	// state
+	// ---------------------------
+
+	/**
+	 * Sets the layout the placeholder rows are shaped like, e.g. the adapter's row layout. Every visible view of the layout which is not a view group is drawn as a block, text views without text as a line of part of their parent's width.
+	 * @param layoutRes the layout resource or 0 for the default rows of an icon and two lines of text
+	 */
+	void setRowLayout(int layoutRes) {
+		if (layoutRes == mRowLayoutRes) return;
+		mRowLayoutRes = layoutRes;
+		mTemplateWidth = -1;
+		requestLayout();
+		invalidate();
+	}
+
+	/**
+	 * Sets the number of placeholder rows
+	 * @param rowCount the number of rows or 0 to fill the view
+	 */
+	void setRowCount(int rowCount) {
+		if (rowCount == mRowCount) return;
+		mRowCount = rowCount;
+		requestLayout();
+		invalidate();
+	}
+
+	// ---------------------------
+	// measuring and drawing
+	// ---------------------------
+
+	@Override
+	protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+		int width = MeasureSpec.getSize(widthMeasureSpec);
+		if (MeasureSpec.getMode(widthMeasureSpec) == MeasureSpec.UNSPECIFIED) width = Math.round(320 * mDensity);
+		updateTemplate(width);
+		int height = MeasureSpec.getSize(heightMeasureSpec);
+		if (mRowCount > 0 || MeasureSpec.getMode(heightMeasureSpec) == MeasureSpec.UNSPECIFIED) {
+			height = resolveSize(Math.max(mRowCount, 1) * mRowHeight, heightMeasureSpec);
+		}
+		setMeasuredDimension(width, height);
+	}
+
+	@Override
+	protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+		super.onSizeChanged(w, h, oldw, oldh);
+		// one gradient as wide as the view, moved from its left to its right
+		mShader = new LinearGradient(0, 0, w, 0, new int[] { BASE_COLOR, HIGHLIGHT_COLOR, BASE_COLOR }, new float[] { .35f, .5f, .65f }, Shader.TileMode.CLAMP);
+		mPaint.setShader(mShader);
+	}
+
+	@Override
+	protected void onDraw(Canvas canvas) {
+		if (mShader == null || mTemplate.isEmpty()) return;
+		int width = getWidth();
+		long elapsed = AnimationUtils.currentAnimationTimeMillis() - mShimmerStartTime;
+		mShaderMatrix.setTranslate(-width + 2f * width * (elapsed % SHIMMER_DURATION) / SHIMMER_DURATION, 0);
+		mShader.setLocalMatrix(mShaderMatrix);
+
+		int rowCount = mRowCount > 0 ? mRowCount : (getHeight() + mRowHeight - 1) / mRowHeight;
+		for (int row = 0; row < rowCount; row++) {
+			int top = row * mRowHeight;
+			for (int i = 0; i < mTemplate.size(); i++) {
+				RectF block = mTemplate.get(i);
+				mRect.set(block.left, block.top + top, block.right, block.bottom + top);
+				// square blocks such as avatars are drawn as circles
+				float radius = block.width() == block.height() ? block.width() / 2 : Math.min(mCornerRadius, block.height() / 2);
+				canvas.drawRoundRect(mRect, radius, radius, mPaint);
+			}
+		}
+		// keep drawing frames only while the view is drawn at all
+		ViewCompat.postInvalidateOnAnimation(this);
+	}
+
+	// ---------------------------
+	// private methods
+	// ---------------------------
+
+	private void updateTemplate(int width) {
+		if (width == mTemplateWidth) return;
+		mTemplateWidth = width;
+		mTemplate.clear();
+		if (mRowLayoutRes != 0) createTemplate(width);
+		if (mTemplate.isEmpty()) createDefaultTemplate(width);
+	}
+
+	private void createDefaultTemplate(int width) {
+		float padding = 16 * mDensity;
+		float iconSize = 40 * mDensity;
+		float textLeft = padding * 2 + iconSize;
+		float textWidth = Math.max(0, width - textLeft - padding);
+		mRowHeight = Math.round(72 * mDensity);
+		mTemplate.add(new RectF(padding, padding, padding + iconSize, padding + iconSize));
+		mTemplate.add(new RectF(textLeft, 18 * mDensity, textLeft + textWidth * .6f, 30 * mDensity));
+		mTemplate.add(new RectF(textLeft, 40 * mDensity, textLeft + textWidth * .4f, 50 * mDensity));
+	}
+
+	private void createTemplate(int width) {
+		// the row is laid out once off screen to find where its views are
+		View row = LayoutInflater.from(getContext()).inflate(mRowLayoutRes, new FrameLayout(getContext()), false);
+		row.measure(MeasureSpec.makeMeasureSpec(width, MeasureSpec.EXACTLY), MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED));
+		row.layout(0, 0, row.getMeasuredWidth(), row.getMeasuredHeight());
+		mRowHeight = Math.max(1, row.getMeasuredHeight());
+		addBlocks(row, 0, 0, width);
+	}
+
+	private void addBlocks(View view, int left, int top, int parentRight) {
+		if (view.getVisibility() != View.VISIBLE) return;
+		if (view instanceof ViewGroup) {
+			ViewGroup group = (ViewGroup) view;
+			for (int i = 0; i < group.getChildCount(); i++) {
+				View child = group.getChildAt(i);
+				addBlocks(child, left + child.getLeft(), top + child.getTop(), left + group.getWidth() - group.getPaddingRight());
+			}
+			return;
+		}
+		RectF block = new RectF(left + view.getPaddingLeft(), top + view.getPaddingTop(), left + view.getWidth() - view.getPaddingRight(), top + view.getHeight() - view.getPaddingBottom());
+		if (block.width() <= 0 && view instanceof TextView) {
+			// a wrap_content text view has no width before its text is set, it is drawn as a line of part of the parent's width
+			block.right = block.left + Math.max(0, parentRight - block.left) * EMPTY_TEXT_WIDTH;
+		}
+		if (block.width() > 0 && block.height() > 0) mTemplate.add(block);
+	}
+}
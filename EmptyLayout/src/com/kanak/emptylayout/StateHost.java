@@ -0,0 +1,192 @@
+package com.kanak.emptylayout;
+
+import android.database.DataSetObserver;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
+import android.widget.Adapter;
+import android.widget.AdapterView;
+import android.widget.WrapperListAdapter;
+
+/**
+ * The view whose content is replaced by the loading, empty and error layouts of an {@link EmptyLayout} while it has no items.
+ * The state layouts are added next to the content view, in its parent, and the content view is hidden while they are shown.
+ * <p>
+ * Use {@link #of(AdapterView)} for list views, grid views and other adapter views, and {@link #of(ViewGroup)} for any other view group.
+ * Views which are not adapter views, such as a <code>RecyclerView</code>, can be supported by extending this class:
+ * return the adapter's item count from {@link #getItemCount()} and call {@link #notifyItemCountChanged()} from the adapter's data observer.
+ */
+public abstract class StateHost {
+
+	private Listener mListener;
+
+	interface Listener {
+		void onItemCountChanged();
+	}
+
+	// ---------------------------
+	// public methods
+	// ---------------------------
+
+	/**
+	 * Gets the view which shows the items
+	 * @return the content view
+	 */
+	public abstract View getContentView();
+
+	/**
+	 * Gets the number of items shown by the content view. The state layouts are only shown while this is zero.
+	 * @return the number of items
+	 */
+	public abstract int getItemCount();
+
+	/**
+	 * Creates a host for a list view or any other adapter view. The adapter is observed, so the content is shown again as soon as the adapter gets items.
+	 * @param adapterView the adapter view
+	 * @return the host
+	 */
+	public static StateHost of(AdapterView<?> adapterView) {
+		return new AdapterViewHost(adapterView);
+	}
+
+	/**
+	 * Creates a host for a view group. Its children are counted as the items, so the state layouts are shown while it has no children.
+	 * Call {@link EmptyLayout#notifyContentChanged()} after adding or removing children.
+	 * @param viewGroup the view group
+	 * @return the host
+	 */
+	public static StateHost of(ViewGroup viewGroup) {
+		return new ViewGroupHost(viewGroup);
+	}
+
+	// ---------------------------
+	// protected methods
+	// ---------------------------
+
+	/**
+	 * Called when the host should start watching its items
+	 */
+	protected void onStartObserving() {
+	}
+
+	/**
+	 * Called when the host should stop watching its items
+	 */
+	protected void onStopObserving() {
+	}
+
+	/**
+	 * Tells the {@link EmptyLayout} that the number of items may have changed
+	 */
+	protected final void notifyItemCountChanged() {
+		if (mListener != null) mListener.onItemCountChanged();
+	}
+
+	// ---------------------------
+	// package private methods
+	// ---------------------------
+
+	final void startObserving(Listener listener) {
+		mListener = listener;
+		onStartObserving();
+	}
+
+	final void stopObserving() {
+		onStopObserving();
+		mListener = null;
+	}
+
+	// ---------------------------
+	// hosts
+	// ---------------------------
+
+	private static class AdapterViewHost extends StateHost {
+
+		private final AdapterView<?> mAdapterView;
+		private Adapter mObservedAdapter;
+		private boolean mObserving;
+
+		private final DataSetObserver mDataSetObserver = new DataSetObserver() {
+			@Override
+			public void onChanged() {
+				notifyItemCountChanged();
+			}
+
+			@Override
+			public void onInvalidated() {
+				notifyItemCountChanged();
+			}
+		};
+
+		// adapter views don't tell when their adapter is replaced, so check on every layout
+		private final ViewTreeObserver.OnGlobalLayoutListener mLayoutListener = new ViewTreeObserver.OnGlobalLayoutListener() {
+			@Override
+			public void onGlobalLayout() {
+				if (mAdapterView.getAdapter() != mObservedAdapter) {
+					observeAdapter();
+					notifyItemCountChanged();
+				}
+			}
+		};
+
+		AdapterViewHost(AdapterView<?> adapterView) {
+			mAdapterView = adapterView;
+		}
+
+		@Override
+		public View getContentView() {
+			return mAdapterView;
+		}
+
+		@Override
+		public int getItemCount() {
+			if (mObserving && mAdapterView.getAdapter() != mObservedAdapter) observeAdapter();
+			Adapter adapter = mAdapterView.getAdapter();
+			// header and footer rows of a list view are not items
+			if (adapter instanceof WrapperListAdapter) adapter = ((WrapperListAdapter) adapter).getWrappedAdapter();
+			return adapter == null ? 0 : adapter.getCount();
+		}
+
+		@Override
+		protected void onStartObserving() {
+			mObserving = true;
+			observeAdapter();
+			mAdapterView.getViewTreeObserver().addOnGlobalLayoutListener(mLayoutListener);
+		}
+
+		@Override
+		@SuppressWarnings("deprecation")
+		protected void onStopObserving() {
+			mObserving = false;
+			if (mObservedAdapter != null) mObservedAdapter.unregisterDataSetObserver(mDataSetObserver);
+			mObservedAdapter = null;
+			ViewTreeObserver observer = mAdapterView.getViewTreeObserver();
+			if (observer.isAlive()) observer.removeGlobalOnLayoutListener(mLayoutListener);
+		}
+
+		private void observeAdapter() {
+			if (mObservedAdapter != null) mObservedAdapter.unregisterDataSetObserver(mDataSetObserver);
+			mObservedAdapter = mAdapterView.getAdapter();
+			if (mObservedAdapter != null) mObservedAdapter.registerDataSetObserver(mDataSetObserver);
+		}
+	}
+
+	private static class ViewGroupHost extends StateHost {
+
+		private final ViewGroup mViewGroup;
+
+		ViewGroupHost(ViewGroup viewGroup) {
+			mViewGroup = viewGroup;
+		}
+
+		@Override
+		public View getContentView() {
+			return mViewGroup;
+		}
+
+		@Override
+		public int getItemCount() {
+			return mViewGroup.getChildCount();
+		}
+	}
+}
@@ -0,0 +1,313 @@
+package com.kanak.emptylayout;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.support.v4.util.LruCache;
+import android.view.View;
+import android.widget.ImageView;
+import android.widget.TextView;
+
+/**
+ * A cache of the icons shown by the state layouts, which can be shared by many {@link EmptyLayout}s.
+ * Icons are kept by drawable resource and size. A bitmap icon is decoded only once, downsampled to the size it is shown at,
+ * and every layout gets its own drawable sharing the same bitmap. The cache is cleared when the system asks the app to trim its memory.
+ */
+public class StateIconCache {
+
+	private static StateIconCache sDefaultCache;
+
+	private final LruCache<Key, Entry> mCache;
+
+	// ---------------------------
+	// static variables
+	// ---------------------------
+	/**
+	 * The number of bytes of bitmaps kept by the default cache
+	 */
+	public final static int DEFAULT_MAX_SIZE = 512 * 1024;
+
+	private static class Key {
+		final int drawableRes;
+		final int size;
+
+		Key(int drawableRes, int size) {
+			this.drawableRes = drawableRes;
+			this.size = size;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key)) return false;
+			Key key = (Key) o;
+			return key.drawableRes == drawableRes && key.size == size;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * drawableRes + size;
+		}
+	}
+
+	private static class Entry {
+		final Drawable.ConstantState state;
+		final int byteCount;
+
+		Entry(Drawable.ConstantState state, int byteCount) {
+			this.state = state;
+			this.byteCount = byteCount;
+		}
+	}
+
+	// ---------------------------
+	// public methods
+	// ---------------------------
+
+	/**
+	 * Constructor
+	 * @param maxSize the maximum number of bytes of bitmaps kept by the cache
+	 */
+	public StateIconCache(int maxSize) {
+		if (maxSize <= 0) throw new IllegalArgumentException("maxSize <= 0");
+		mCache = new LruCache<Key, Entry>(maxSize) {
+			@Override
+			protected int sizeOf(Key key, Entry value) {
+				return value.byteCount;
+			}
+		};
+	}
+
+	/**
+	 * Gets the cache shared by the whole process. On API 14 and above the cache is registered to be trimmed when the system runs low on memory.
+	 * @param context any context of the app
+	 * @return the default cache
+	 */
+	public static synchronized StateIconCache getDefault(Context context) {
+		if (sDefaultCache == null) {
+			sDefaultCache = new StateIconCache(DEFAULT_MAX_SIZE);
+			if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.ICE_CREAM_SANDWICH) registerComponentCallbacks(context, sDefaultCache);
+		}
+		return sDefaultCache;
+	}
+
+	/**
+	 * Gets an icon from the cache, or decodes it if the cache does not have it. Bitmaps are scaled down so that their larger side is the given size,
+	 * but never beyond the size the drawable has on this screen. Other drawables are loaded as usual and shared as they are.
+	 * @param resources the resources the icon is loaded from
+	 * @param drawableRes the drawable resource of the icon
+	 * @param size the size in pixels the icon is shown at
+	 * @return a new drawable for the icon, which can be used by one view
+	 */
+	public Drawable get(Resources resources, int drawableRes, int size) {
+		Key key = new Key(drawableRes, size);
+		Entry entry = mCache.get(key);
+		if (entry == null) {
+			// decoded outside of the lock, two threads may decode the same icon once
+			Drawable drawable = decode(resources, drawableRes, size);
+			Drawable.ConstantState state = drawable.getConstantState();
+			if (state == null) return drawable;
+			entry = new Entry(state, getByteCount(drawable));
+			mCache.put(key, entry);
+		}
+		return entry.state.newDrawable(resources);
+	}
+
+	/**
+	 * Removes all the icons from the cache
+	 */
+	public void clear() {
+		mCache.evictAll();
+	}
+
+	/**
+	 * Removes the least recently used icons until the cache holds no more than the given number of bytes
+	 * @param maxSize the number of bytes to keep
+	 */
+	public void trimToSize(int maxSize) {
+		mCache.trimToSize(maxSize);
+	}
+
+	// ---------------------------
+	// getters and setters
+	// ---------------------------
+	/**
+	 * Gets the maximum number of bytes of bitmaps kept by the cache
+	 * @return the maximum size of the cache
+	 */
+	public int getMaxSize() {
+		return mCache.maxSize();
+	}
+
+	/**
+	 * Gets the number of bytes of the bitmaps currently in the cache
+	 * @return the size of the cache
+	 */
+	public int size() {
+		return mCache.size();
+	}
+
+	/**
+	 * Gets how many times an icon was taken from the cache
+	 * @return the number of hits
+	 */
+	public int getHitCount() {
+		return mCache.hitCount();
+	}
+
+	/**
+	 * Gets how many times an icon had to be decoded because the cache did not have it
+	 * @return the number of misses
+	 */
+	public int getMissCount() {
+		return mCache.missCount();
+	}
+
+	/**
+	 * Gets how many icons were dropped because the cache was full
+	 * @return the number of evictions
+	 */
+	public int getEvictionCount() {
+		return mCache.evictionCount();
+	}
+
+	// ---------------------------
+	// component callbacks
+	// ---------------------------
+
+	/**
+	 * Clears or trims the cache when the system runs low on memory. Called for the default cache on API 14 and above, forward it from the application for other caches.
+	 * @param level the level given to {@link ComponentCallbacks2#onTrimMemory(int)}
+	 */
+	public void onTrimMemory(int level) {
+		if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) clear();
+		else if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) trimToSize(getMaxSize() / 2);
+	}
+
+	/**
+	 * Clears the cache when the whole system is low on memory
+	 */
+	public void onLowMemory() {
+		clear();
+	}
+
+	/**
+	 * Clears the cache when the configuration changes
+	 * @param newConfig the new configuration
+	 */
+	public void onConfigurationChanged(Configuration newConfig) {
+		// icons decoded for the old density have the wrong size
+		clear();
+	}
+
+	// ---------------------------
+	// private methods
+	// ---------------------------
+
+	// ComponentCallbacks2 only exists on API 14 and above, so the cache can't implement it without failing to load on older versions
+	private static void registerComponentCallbacks(Context context, final StateIconCache cache) {
+		context.getApplicationContext().registerComponentCallbacks(new ComponentCallbacks2() {
+			@Override
+			public void onTrimMemory(int level) {
+				cache.onTrimMemory(level);
+			}
+
+			@Override
+			public void onLowMemory() {
+				cache.onLowMemory();
+			}
+
+			@Override
+			public void onConfigurationChanged(Configuration newConfig) {
+				cache.onConfigurationChanged(newConfig);
+			}
+		});
+	}
+
+	/**
+	 * Gets the size of an icon shown by the state layouts, see <code>R.dimen.state_icon_size</code>
+	 * @param resources the resources of the layout
+	 * @return the size in pixels
+	 */
+	static int getIconSize(Resources resources) {
+		return resources.getDimensionPixelSize(R.dimen.state_icon_size);
+	}
+
+	/**
+	 * Replaces the icon of a default state layout inflated from XML by the cached one, unless the app overrode the layout with another icon
+	 * @param layout the inflated layout
+	 * @param layoutRes the resource it was inflated from
+	 */
+	@SuppressWarnings("deprecation")
+	static void useCachedIcons(View layout, int layoutRes) {
+		Context context = layout.getContext();
+		if (layoutRes == R.layout.view_loading) {
+			View imageView = layout.findViewById(R.id.imageViewLoading);
+			if (!(imageView instanceof ImageView)) return;
+			Drawable icon = getCachedIcon(context, ((ImageView) imageView).getDrawable(), R.drawable.ic_loading);
+			if (icon != null) ((ImageView) imageView).setImageDrawable(icon);
+			return;
+		}
+		int drawableRes;
+		if (layoutRes == R.layout.view_empty) drawableRes = R.drawable.ic_empty;
+		else if (layoutRes == R.layout.view_error) drawableRes = R.drawable.ic_error;
+		else return;
+		View textView = layout.findViewById(R.id.textViewMessage);
+		if (!(textView instanceof TextView)) return;
+		Drawable[] drawables = ((TextView) textView).getCompoundDrawables();
+		Drawable icon = getCachedIcon(context, drawables[1], drawableRes);
+		if (icon != null) ((TextView) textView).setCompoundDrawablesWithIntrinsicBounds(drawables[0], icon, drawables[2], drawables[3]);
+	}
+
+	@SuppressWarnings("deprecation")
+	private static Drawable getCachedIcon(Context context, Drawable inflated, int drawableRes) {
+		if (!(inflated instanceof BitmapDrawable)) return null;
+		// drawables of the same resource share their bitmap, any other bitmap is an icon of the app's own version of the layout
+		Resources resources = context.getResources();
+		Drawable original = resources.getDrawable(drawableRes);
+		if (!(original instanceof BitmapDrawable) || ((BitmapDrawable) original).getBitmap() != ((BitmapDrawable) inflated).getBitmap()) return null;
+		return getDefault(context).get(resources, drawableRes, getIconSize(resources));
+	}
+
+	@SuppressWarnings("deprecation")
+	private static Drawable decode(Resources resources, int drawableRes, int size) {
+		BitmapFactory.Options options = new BitmapFactory.Options();
+		options.inJustDecodeBounds = true;
+		options.inScaled = false;
+		BitmapFactory.decodeResource(resources, drawableRes, options);
+		// not a bitmap, e.g. a shape or a selector
+		if (options.outWidth <= 0 || options.outHeight <= 0 || size <= 0) return resources.getDrawable(drawableRes);
+
+		// never larger than the drawable would be drawn by itself, i.e. scaled from its density bucket to the screen's
+		int largerSide = Math.max(options.outWidth, options.outHeight);
+		int densityDpi = resources.getDisplayMetrics().densityDpi;
+		if (options.inDensity > 0 && densityDpi > 0) size = Math.min(size, Math.round((float) largerSide * densityDpi / options.inDensity));
+
+		// decode no larger than needed, then scale to the exact size
+		int sampleSize = 1;
+		while (largerSide / (sampleSize * 2) >= size) sampleSize *= 2;
+		options.inJustDecodeBounds = false;
+		options.inSampleSize = sampleSize;
+		Bitmap bitmap = BitmapFactory.decodeResource(resources, drawableRes, options);
+		if (bitmap == null) return resources.getDrawable(drawableRes);
+
+		float scale = (float) size / Math.max(bitmap.getWidth(), bitmap.getHeight());
+		int width = Math.max(1, Math.round(bitmap.getWidth() * scale));
+		int height = Math.max(1, Math.round(bitmap.getHeight() * scale));
+		if (width != bitmap.getWidth() || height != bitmap.getHeight()) bitmap = Bitmap.createScaledBitmap(bitmap, width, height, true);
+		// the bitmap still has the density of its bucket, which would make the drawable scale it a second time
+		if (densityDpi > 0) bitmap.setDensity(densityDpi);
+		return new BitmapDrawable(resources, bitmap);
+	}
+
+	private static int getByteCount(Drawable drawable) {
+		if (!(drawable instanceof BitmapDrawable)) return 1;
+		Bitmap bitmap = ((BitmapDrawable) drawable).getBitmap();
+		return bitmap == null ? 1 : bitmap.getRowBytes() * bitmap.getHeight();
+	}
+}
@@ -0,0 +1,193 @@
+package com.kanak.emptylayout;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.text.TextUtils;
+
+/**
+ * Derives the state of an {@link EmptyLayout} from the loads of its data, so screens don't have to call <code>show...()</code> themselves.
+ * Report every load with {@link #onLoading()} and its result with {@link #onSuccess(long, int)} or {@link #onError(long, CharSequence)},
+ * e.g. from <code>onCreateLoader()</code> and <code>onLoadFinished()</code> of a loader, from a cursor's content observer or from any callback, on any thread.
+ * <p>
+ * Results of a load which was replaced by a newer one are dropped, so a slow old request can't overwrite a newer state.
+ * With {@link #setDebounce(long)} a state is only shown once the source stopped changing for that long, and the empty layout is only told when the derived state really changes.
+ */
+public class StateSource {
+
+	/**
+	 * The state derived when a load succeeded with items, the content is shown
+	 */
+	static final int STATE_CONTENT = 0;
+
+	private final Handler mHandler = new Handler(Looper.getMainLooper());
+	private final AtomicLong mLatestRequest = new AtomicLong();
+	private final AtomicInteger mDroppedCount = new AtomicInteger();
+	private volatile long mDebounce;
+	private Listener mListener;
+	private boolean mHasState;
+	private int mState;
+	private CharSequence mMessage;
+	private boolean mHasPendingState;
+	private int mPendingState;
+	private CharSequence mPendingMessage;
+	private final Runnable mDeliverRunnable = new Runnable() {
+		@Override
+		public void run() {
+			deliverPendingState();
+		}
+	};
+
+	interface Listener {
+		void onStateChanged(int state, CharSequence message);
+	}
+
+	// ---------------------------
+	// public methods
+	// ---------------------------
+
+	/**
+	 * Reports that a new load has started. Results of the loads started before are dropped from now on.
+	 * @return the request of the load, to be given to {@link #onSuccess(long, int)} or {@link #onError(long, CharSequence)}
+	 */
+	public long onLoading() {
+		long request = mLatestRequest.incrementAndGet();
+		post(request, EmptyLayout.TYPE_LOADING, null);
+		return request;
+	}
+
+	/**
+	 * Reports that a load has finished
+	 * @param request the request returned by {@link #onLoading()}
+	 * @param itemCount the number of items loaded, the empty layout is shown when it is zero
+	 */
+	public void onSuccess(long request, int itemCount) {
+		post(request, itemCount == 0 ? EmptyLayout.TYPE_EMPTY : STATE_CONTENT, null);
+	}
+
+	/**
+	 * Reports that the latest load has finished
+	 * @param itemCount the number of items loaded, the empty layout is shown when it is zero
+	 */
+	public void onSuccess(int itemCount) {
+		onSuccess(mLatestRequest.get(), itemCount);
+	}
+
+	/**
+	 * Reports that a load has failed
+	 * @param request the request returned by {@link #onLoading()}
+	 * @param errorMessage the message shown by the error layout, or null to keep the error message of the empty layout
+	 */
+	public void onError(long request, CharSequence errorMessage) {
+		post(request, EmptyLayout.TYPE_ERROR, errorMessage);
+	}
+
+	/**
+	 * Reports that the latest load has failed
+	 */
+	public void onError() {
+		onError(mLatestRequest.get(), null);
+	}
+
+	// ---------------------------
+	// getters and setters
+	// ---------------------------
+	/**
+	 * Gets how long the derived state has to stay the same before it is shown
+	 * @return the debounce time in milliseconds
+	 */
+	public long getDebounce() {
+		return mDebounce;
+	}
+
+	/**
+	 * Sets how long the derived state will have to stay the same before it is shown, so a source which flaps between states only shows the state it settles on
+	 * @param debounce the debounce time in milliseconds or 0 to show every change
+	 */
+	public void setDebounce(long debounce) {
+		if (debounce < 0) throw new IllegalArgumentException("debounce < 0");
+		mDebounce = debounce;
+	}
+
+	/**
+	 * Gets how many results were dropped because a newer load had been started
+	 * @return the number of dropped results
+	 */
+	public int getDroppedResultCount() {
+		return mDroppedCount.get();
+	}
+
+	// ---------------------------
+	// package private methods
+	// ---------------------------
+
+	void bind(Listener listener) {
+		mListener = listener;
+		// a bound empty layout starts with the state derived so far
+		if (mHasState) listener.onStateChanged(mState, mMessage);
+	}
+
+	void unbind(Listener listener) {
+		// another empty layout may have taken over the source
+		if (mListener != listener) return;
+		mListener = null;
+		mHandler.removeCallbacks(mDeliverRunnable);
+		// the pending state is kept as the current one, so the next empty layout starts with it
+		if (mHasPendingState) {
+			mHasPendingState = false;
+			setState(mPendingState, mPendingMessage);
+		}
+	}
+
+	// ---------------------------
+	// private methods
+	// ---------------------------
+
+	private void post(final long request, final int state, final CharSequence message) {
+		if (isStale(request)) return;
+		mHandler.post(new Runnable() {
+			@Override
+			public void run() {
+				// a newer load may have started while this result was waiting
+				if (isStale(request)) return;
+				onDerivedState(state, message);
+			}
+		});
+	}
+
+	private boolean isStale(long request) {
+		if (request >= mLatestRequest.get()) return false;
+		mDroppedCount.incrementAndGet();
+		return true;
+	}
+
+	private void onDerivedState(int state, CharSequence message) {
+		long debounce = mDebounce;
+		if (debounce <= 0) {
+			setState(state, message);
+			return;
+		}
+		// only the state the source settles on is shown
+		mHasPendingState = true;
+		mPendingState = state;
+		mPendingMessage = message;
+		mHandler.removeCallbacks(mDeliverRunnable);
+		mHandler.postDelayed(mDeliverRunnable, debounce);
+	}
+
+	private void deliverPendingState() {
+		if (!mHasPendingState) return;
+		mHasPendingState = false;
+		setState(mPendingState, mPendingMessage);
+	}
+
+	private void setState(int state, CharSequence message) {
+		if (mHasState && state == mState && TextUtils.equals(message, mMessage)) return;
+		mHasState = true;
+		mState = state;
+		mMessage = message;
+		if (mListener != null) mListener.onStateChanged(state, message);
+	}
+}
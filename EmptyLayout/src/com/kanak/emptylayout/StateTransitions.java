@@ -0,0 +1,113 @@
+package com.kanak.emptylayout;
+
+import java.util.HashMap;
+
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
+import android.animation.ValueAnimator;
+import android.view.View;
+
+/**
+ * Fades and slides the state layouts in and out. Only the alpha and the translation of the layouts are animated, on a hardware layer,
+ * so a transition does not cause any layout pass: an incoming layout is made visible before it fades in and an outgoing layout is only gone after it faded out.
+ * Each layout has at most one running animator, which is cancelled when the layout is shown or hidden again. Requires API 11.
+ */
+class StateTransitions {
+
+	private final HashMap<View, Animator> mRunning = new HashMap<View, Animator>();
+	private final float mDistance;
+	private long mDuration;
+
+	StateTransitions(float distance, long duration) {
+		mDistance = distance;
+		mDuration = duration;
+	}
+
+	/**
+	 * Sets how long a layout takes to fade in or out
+	 * @param duration the duration in milliseconds
+	 */
+	void setDuration(long duration) {
+		mDuration = duration;
+	}
+
+	/**
+	 * Fades a layout in from where it currently is, or from below if it is gone
+	 * @param view the layout
+	 */
+	void show(View view) {
+		Animator running = mRunning.get(view);
+		if (running == null && view.getVisibility() == View.VISIBLE) return;
+		cancel(view);
+		if (view.getVisibility() != View.VISIBLE) {
+			view.setAlpha(0);
+			view.setTranslationY(mDistance);
+			view.setVisibility(View.VISIBLE);
+		}
+		animate(view, 1, 0, false);
+	}
+
+	/**
+	 * Fades a layout out upwards and makes it gone at the end
+	 * @param view the layout
+	 */
+	void hide(View view) {
+		if (view.getVisibility() != View.VISIBLE) return;
+		cancel(view);
+		animate(view, 0, -mDistance, true);
+	}
+
+	/**
+	 * Stops the animation of a layout and puts it back to its normal alpha and position
+	 * @param view the layout
+	 */
+	void reset(View view) {
+		cancel(view);
+		view.setAlpha(1);
+		view.setTranslationY(0);
+	}
+
+	private void cancel(View view) {
+		Animator running = mRunning.remove(view);
+		if (running != null) running.cancel();
+	}
+
+	private void animate(final View view, final float toAlpha, final float toTranslationY, final boolean hide) {
+		final float fromAlpha = view.getAlpha();
+		final float fromTranslationY = view.getTranslationY();
+		ValueAnimator animator = ValueAnimator.ofFloat(0, 1);
+		animator.setDuration(mDuration);
+		animator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+			@Override
+			public void onAnimationUpdate(ValueAnimator animation) {
+				float fraction = animation.getAnimatedFraction();
+				view.setAlpha(fromAlpha + (toAlpha - fromAlpha) * fraction);
+				view.setTranslationY(fromTranslationY + (toTranslationY - fromTranslationY) * fraction);
+			}
+		});
+		animator.addListener(new AnimatorListenerAdapter() {
+			private boolean mCancelled;
+
+			@Override
+			public void onAnimationCancel(Animator animation) {
+				mCancelled = true;
+			}
+
+			@Override
+			public void onAnimationEnd(Animator animation) {
+				view.setLayerType(View.LAYER_TYPE_NONE, null);
+				if (mRunning.get(view) == animation) mRunning.remove(view);
+				// an interrupted animation leaves the layout to the one which replaced it
+				if (mCancelled) return;
+				if (hide) {
+					view.setVisibility(View.GONE);
+					view.setAlpha(1);
+					view.setTranslationY(0);
+				}
+			}
+		});
+		view.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+		mRunning.put(view, animator);
+		animator.start();
+	}
+}
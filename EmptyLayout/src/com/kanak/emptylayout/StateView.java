@@ -0,0 +1,426 @@
+package com.kanak.emptylayout;
+
+import java.util.List;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.drawable.Drawable;
+import android.os.Bundle;
+import android.support.v4.view.ViewCompat;
+import android.support.v4.view.accessibility.AccessibilityNodeInfoCompat;
+import android.support.v4.widget.ExploreByTouchHelper;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.text.TextUtils;
+import android.util.DisplayMetrics;
+import android.util.SparseArray;
+import android.view.KeyEvent;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.accessibility.AccessibilityEvent;
+import android.view.animation.AnimationUtils;
+
+/**
+ * A single view which draws the icon, the message and the button of a state itself. Used by {@link EmptyLayout} in flat rendering mode
+ * instead of the inflated state layouts, so a state adds one view to the hierarchy instead of a layout with several children.
+ * The button is exposed to accessibility services as a virtual view and can be focused and clicked with a D-pad or keyboard.
+ */
+class StateView extends View {
+
+	private static final int SPIN_DURATION = 1500;
+	private static final int BUTTON_VIRTUAL_VIEW_ID = 1;
+	private static final int FOCUS_COLOR = 0xFF33B5E5;
+
+	private final TextPaint mMessagePaint;
+	private final TextPaint mButtonTextPaint;
+	private final Paint mButtonPaint;
+	private final Paint mFocusPaint;
+	private final ButtonAccessibilityHelper mAccessibilityHelper;
+	private final RectF mButtonRect = new RectF();
+	private final int mPadding;
+	private final int mSpacing;
+	private final int mButtonPaddingHorizontal;
+	private final int mButtonPaddingVertical;
+	private final float mButtonCornerRadius;
+
+	private int mIconRes;
+	private Drawable mIcon;
+	private final SparseArray<Drawable> mIcons = new SparseArray<Drawable>();
+	private CharSequence mMessage;
+	private int mMessageDesiredWidth = -1;
+	private StaticLayout mMessageLayout;
+	private int mMaxContentWidth;
+	private PrecomputedMessage mPrecomputedMessage;
+	private String mButtonText;
+	private View.OnClickListener mButtonClickListener;
+	private boolean mButtonPressed;
+	private boolean mSpinning;
+	private long mSpinStartTime;
+
+	StateView(Context context) {
+		super(context);
+		DisplayMetrics metrics = context.getResources().getDisplayMetrics();
+		mPadding = Math.round(16 * metrics.density);
+		mSpacing = Math.round(16 * metrics.density);
+		mButtonPaddingHorizontal = Math.round(16 * metrics.density);
+		mButtonPaddingVertical = Math.round(10 * metrics.density);
+		mButtonCornerRadius = 2 * metrics.density;
+
+		// sizes of textAppearanceMedium and a default button
+		mMessagePaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+		mMessagePaint.setTextSize(18 * metrics.scaledDensity);
+		mMessagePaint.setColor(Color.GRAY);
+		mButtonTextPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+		mButtonTextPaint.setTextSize(14 * metrics.scaledDensity);
+		mButtonTextPaint.setColor(Color.DKGRAY);
+		mButtonTextPaint.setTextAlign(Paint.Align.CENTER);
+		mButtonPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+		mFocusPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+		mFocusPaint.setStyle(Paint.Style.STROKE);
+		mFocusPaint.setStrokeWidth(2 * metrics.density);
+		mFocusPaint.setColor(FOCUS_COLOR);
+
+		mAccessibilityHelper = new ButtonAccessibilityHelper();
+		ViewCompat.setAccessibilityDelegate(this, mAccessibilityHelper);
+	}
+
+	// ---------------------------
+	// state
+	// ---------------------------
+
+	/**
+	 * Sets the icon drawn above the message
+	 * @param iconRes the drawable resource or 0 for no icon
+	 */
+	void setIcon(int iconRes) {
+		if (iconRes == mIconRes) return;
+		mIconRes = iconRes;
+		mIcon = iconRes != 0 ? getIcon(iconRes) : null;
+		requestLayout();
+		invalidate();
+	}
+
+	/**
+	 * Sets the message. The text layout is only created again when the message changes.
+	 * @param message the message
+	 */
+	void setMessage(CharSequence message) {
+		if (TextUtils.equals(message, mMessage)) return;
+		mMessage = message;
+		// read out when the view itself is focused by an accessibility service
+		setContentDescription(message);
+		mMessageDesiredWidth = -1;
+		mMessageLayout = null;
+		requestLayout();
+		invalidate();
+	}
+
+	/**
+	 * Measures a message and builds its text layout on the background thread, so that showing the message later does not have to.
+	 * Only done once the view has been measured, since the layout depends on the available width.
+	 * @param message the message which will be shown
+	 */
+	void precomputeMessage(final CharSequence message) {
+		if (message == null || mMaxContentWidth <= 0) return;
+		final int maxContentWidth = mMaxContentWidth;
+		final TextPaint paint = new TextPaint(mMessagePaint);
+		BackgroundExecutor.execute(new Runnable() {
+			@Override
+			public void run() {
+				int desiredWidth = (int) Math.ceil(Layout.getDesiredWidth(message, paint));
+				StaticLayout layout = new StaticLayout(message, paint, Math.min(desiredWidth, maxContentWidth), Layout.Alignment.ALIGN_CENTER, 1, 0, false);
+				final PrecomputedMessage precomputedMessage = new PrecomputedMessage(message, desiredWidth, layout);
+				BackgroundExecutor.postToMainThread(new Runnable() {
+					@Override
+					public void run() {
+						mPrecomputedMessage = precomputedMessage;
+					}
+				});
+			}
+		});
+	}
+
+	/**
+	 * Sets the button
+	 * @param text the text of the button or null to hide the button
+	 * @param clickListener the listener called when the button is clicked
+	 */
+	void setButton(String text, View.OnClickListener clickListener) {
+		mButtonClickListener = clickListener;
+		// the button is reached with a D-pad or keyboard by focusing the view
+		setFocusable(hasButton(text, clickListener));
+		if (TextUtils.equals(text, mButtonText)) return;
+		mButtonText = text;
+		mButtonPressed = false;
+		mAccessibilityHelper.invalidateRoot();
+		requestLayout();
+		invalidate();
+	}
+
+	/**
+	 * Sets if the icon keeps rotating
+	 * @param spinning will the icon rotate
+	 */
+	void setSpinning(boolean spinning) {
+		if (spinning == mSpinning) return;
+		mSpinning = spinning;
+		mSpinStartTime = AnimationUtils.currentAnimationTimeMillis();
+		invalidate();
+	}
+
+	// ---------------------------
+	// measuring and drawing
+	// ---------------------------
+
+	@Override
+	protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+		int maxContentWidth = Integer.MAX_VALUE;
+		if (MeasureSpec.getMode(widthMeasureSpec) != MeasureSpec.UNSPECIFIED) {
+			maxContentWidth = Math.max(0, MeasureSpec.getSize(widthMeasureSpec) - 2 * mPadding);
+			mMaxContentWidth = maxContentWidth;
+		}
+
+		int contentWidth = 0;
+		if (mIcon != null) contentWidth = mIcon.getIntrinsicWidth();
+		if (mMessage != null) contentWidth = Math.max(contentWidth, getMessageDesiredWidth());
+		if (mButtonText != null) contentWidth = Math.max(contentWidth, getButtonWidth());
+		contentWidth = Math.min(contentWidth, maxContentWidth);
+
+		if (mMessage != null && (mMessageLayout == null || mMessageLayout.getWidth() != contentWidth)) {
+			PrecomputedMessage precomputed = mPrecomputedMessage;
+			if (precomputed != null && precomputed.text == mMessage && precomputed.layout.getWidth() == contentWidth) {
+				mMessageLayout = precomputed.layout;
+			}
+			else {
+				mMessageLayout = new StaticLayout(mMessage, mMessagePaint, contentWidth, Layout.Alignment.ALIGN_CENTER, 1, 0, false);
+			}
+		}
+
+		int height = 2 * mPadding;
+		if (mIcon != null) height += mIcon.getIntrinsicHeight();
+		if (mMessageLayout != null) height += mSpacing + mMessageLayout.getHeight();
+		if (mButtonText != null) height += mSpacing + getButtonHeight();
+
+		setMeasuredDimension(resolveSize(contentWidth + 2 * mPadding, widthMeasureSpec), resolveSize(height, heightMeasureSpec));
+	}
+
+	@Override
+	protected void onDraw(Canvas canvas) {
+		float centerX = getWidth() / 2f;
+		int top = mPadding;
+
+		if (mIcon != null) {
+			int iconWidth = mIcon.getIntrinsicWidth();
+			int iconHeight = mIcon.getIntrinsicHeight();
+			int left = Math.round(centerX - iconWidth / 2f);
+			mIcon.setBounds(left, top, left + iconWidth, top + iconHeight);
+			if (mSpinning) {
+				long elapsed = AnimationUtils.currentAnimationTimeMillis() - mSpinStartTime;
+				int saveCount = canvas.save();
+				canvas.rotate(360f * (elapsed % SPIN_DURATION) / SPIN_DURATION, centerX, top + iconHeight / 2f);
+				mIcon.draw(canvas);
+				canvas.restoreToCount(saveCount);
+				// keep drawing frames only while the view is drawn at all
+				ViewCompat.postInvalidateOnAnimation(this);
+			}
+			else {
+				mIcon.draw(canvas);
+			}
+			top += iconHeight;
+		}
+
+		if (mMessageLayout != null) {
+			top += mSpacing;
+			int saveCount = canvas.save();
+			canvas.translate(centerX - mMessageLayout.getWidth() / 2f, top);
+			mMessageLayout.draw(canvas);
+			canvas.restoreToCount(saveCount);
+			top += mMessageLayout.getHeight();
+		}
+
+		if (mButtonText != null) {
+			top += mSpacing;
+			int buttonWidth = getButtonWidth();
+			mButtonRect.set(centerX - buttonWidth / 2f, top, centerX + buttonWidth / 2f, top + getButtonHeight());
+			mButtonPaint.setColor(mButtonPressed ? Color.GRAY : Color.LTGRAY);
+			canvas.drawRoundRect(mButtonRect, mButtonCornerRadius, mButtonCornerRadius, mButtonPaint);
+			if (isFocused()) canvas.drawRoundRect(mButtonRect, mButtonCornerRadius, mButtonCornerRadius, mFocusPaint);
+			float baseline = mButtonRect.top + mButtonPaddingVertical - mButtonTextPaint.ascent();
+			canvas.drawText(mButtonText, centerX, baseline, mButtonTextPaint);
+		}
+	}
+
+	// ---------------------------
+	// touch handling
+	// ---------------------------
+
+	@Override
+	public boolean onTouchEvent(MotionEvent event) {
+		if (mButtonText == null || mButtonClickListener == null) return super.onTouchEvent(event);
+		boolean inButton = mButtonRect.contains(event.getX(), event.getY());
+		switch (event.getAction()) {
+		case MotionEvent.ACTION_DOWN:
+			if (!inButton) return false;
+			setButtonPressed(true);
+			return true;
+		case MotionEvent.ACTION_MOVE:
+			if (!inButton) setButtonPressed(false);
+			return true;
+		case MotionEvent.ACTION_UP:
+			if (mButtonPressed && inButton) performButtonClick();
+			setButtonPressed(false);
+			return true;
+		case MotionEvent.ACTION_CANCEL:
+			setButtonPressed(false);
+			return true;
+		default:
+			return true;
+		}
+	}
+
+	@Override
+	public boolean onKeyDown(int keyCode, KeyEvent event) {
+		if (isClickKey(keyCode) && hasButton(mButtonText, mButtonClickListener)) {
+			setButtonPressed(true);
+			return true;
+		}
+		return super.onKeyDown(keyCode, event);
+	}
+
+	@Override
+	public boolean onKeyUp(int keyCode, KeyEvent event) {
+		if (isClickKey(keyCode) && mButtonPressed) {
+			setButtonPressed(false);
+			performButtonClick();
+			return true;
+		}
+		return super.onKeyUp(keyCode, event);
+	}
+
+	@Override
+	protected void onFocusChanged(boolean gainFocus, int direction, Rect previouslyFocusedRect) {
+		super.onFocusChanged(gainFocus, direction, previouslyFocusedRect);
+		if (!gainFocus) setButtonPressed(false);
+		invalidate();
+	}
+
+	@Override
+	public boolean dispatchHoverEvent(MotionEvent event) {
+		// touch exploration of the button
+		if (mAccessibilityHelper.dispatchHoverEvent(event)) return true;
+		return super.dispatchHoverEvent(event);
+	}
+
+	// ---------------------------
+	// private methods
+	// ---------------------------
+
+	private static boolean hasButton(String text, View.OnClickListener clickListener) {
+		return text != null && clickListener != null;
+	}
+
+	private static boolean isClickKey(int keyCode) {
+		return keyCode == KeyEvent.KEYCODE_DPAD_CENTER || keyCode == KeyEvent.KEYCODE_ENTER;
+	}
+
+	private boolean performButtonClick() {
+		if (!hasButton(mButtonText, mButtonClickListener)) return false;
+		mButtonClickListener.onClick(this);
+		mAccessibilityHelper.sendEventForVirtualView(BUTTON_VIRTUAL_VIEW_ID, AccessibilityEvent.TYPE_VIEW_CLICKED);
+		return true;
+	}
+
+	private void setButtonPressed(boolean pressed) {
+		if (pressed == mButtonPressed) return;
+		mButtonPressed = pressed;
+		invalidate();
+	}
+
+	// each icon is taken from the cache once, switching between the states then allocates nothing
+	private Drawable getIcon(int iconRes) {
+		Drawable icon = mIcons.get(iconRes);
+		if (icon == null) {
+			icon = StateIconCache.getDefault(getContext()).get(getResources(), iconRes, StateIconCache.getIconSize(getResources()));
+			mIcons.put(iconRes, icon);
+		}
+		return icon;
+	}
+
+	private int getMessageDesiredWidth() {
+		if (mMessageDesiredWidth < 0) {
+			PrecomputedMessage precomputed = mPrecomputedMessage;
+			if (precomputed != null && precomputed.text == mMessage) mMessageDesiredWidth = precomputed.desiredWidth;
+			else mMessageDesiredWidth = (int) Math.ceil(Layout.getDesiredWidth(mMessage, mMessagePaint));
+		}
+		return mMessageDesiredWidth;
+	}
+
+	private int getButtonWidth() {
+		return (int) Math.ceil(mButtonTextPaint.measureText(mButtonText)) + 2 * mButtonPaddingHorizontal;
+	}
+
+	private int getButtonHeight() {
+		return (int) Math.ceil(mButtonTextPaint.descent() - mButtonTextPaint.ascent()) + 2 * mButtonPaddingVertical;
+	}
+
+	/**
+	 * Exposes the drawn button as a virtual view, so it can be found and clicked by TalkBack
+	 */
+	private class ButtonAccessibilityHelper extends ExploreByTouchHelper {
+		private final Rect mBounds = new Rect();
+
+		ButtonAccessibilityHelper() {
+			super(StateView.this);
+		}
+
+		@Override
+		protected int getVirtualViewAt(float x, float y) {
+			return mButtonText != null && mButtonRect.contains(x, y) ? BUTTON_VIRTUAL_VIEW_ID : INVALID_ID;
+		}
+
+		@Override
+		protected void getVisibleVirtualViews(List<Integer> virtualViewIds) {
+			if (mButtonText != null) virtualViewIds.add(BUTTON_VIRTUAL_VIEW_ID);
+		}
+
+		@Override
+		protected void onPopulateEventForVirtualView(int virtualViewId, AccessibilityEvent event) {
+			event.setContentDescription(mButtonText != null ? mButtonText : "");
+		}
+
+		@Override
+		protected void onPopulateNodeForVirtualView(int virtualViewId, AccessibilityNodeInfoCompat node) {
+			node.setContentDescription(mButtonText != null ? mButtonText : "");
+			mButtonRect.roundOut(mBounds);
+			// the helper needs bounds even before the button was first drawn
+			if (mBounds.isEmpty()) mBounds.set(0, 0, 1, 1);
+			node.setBoundsInParent(mBounds);
+			node.setFocusable(true);
+			node.setClickable(mButtonClickListener != null);
+			if (mButtonClickListener != null) node.addAction(AccessibilityNodeInfoCompat.ACTION_CLICK);
+		}
+
+		@Override
+		protected boolean onPerformActionForVirtualView(int virtualViewId, int action, Bundle arguments) {
+			if (action != AccessibilityNodeInfoCompat.ACTION_CLICK) return false;
+			return performButtonClick();
+		}
+	}
+
+	private static class PrecomputedMessage {
+		final CharSequence text;
+		final int desiredWidth;
+		final StaticLayout layout;
+
+		PrecomputedMessage(CharSequence text, int desiredWidth, StaticLayout layout) {
+			this.text = text;
+			this.desiredWidth = desiredWidth;
+			this.layout = layout;
+		}
+	}
+}
@@ -0,0 +1,116 @@
+package com.kanak.emptylayout;
+
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+/**
+ * Remembers the message, button and animation views of one state layout, so they are only looked up once per layout
+ * instead of on every state change.
+ */
+class StateViewHolder {
+
+	private static int sLookupCount;
+
+	final ViewGroup view;
+	private int mMessageViewId;
+	private TextView mMessageView;
+	private CharSequence mMessage;
+	private int mButtonId;
+	private View mButton;
+	private int mAnimationViewId;
+	private View mAnimationView;
+	private LoadingAnimator mLoadingAnimator;
+
+	StateViewHolder(ViewGroup view) {
+		this.view = view;
+	}
+
+	/**
+	 * Gets the text view which shows the message of the state
+	 * @param messageViewId the id of the text view
+	 * @return the text view or null if the layout does not have it
+	 */
+	TextView getMessageView(int messageViewId) {
+		if (messageViewId != mMessageViewId) {
+			mMessageViewId = messageViewId;
+			mMessageView = messageViewId > 0 ? (TextView) findView(messageViewId) : null;
+			mMessage = null;
+		}
+		return mMessageView;
+	}
+
+	/**
+	 * Shows a message in the message view. The text is only set when it differs from the last message, so an unchanged message is not measured again.
+	 * @param messageViewId the id of the text view
+	 * @param message the message
+	 */
+	void setMessage(int messageViewId, CharSequence message) {
+		TextView messageView = getMessageView(messageViewId);
+		if (messageView == null) return;
+		// styled text may be changed in place, so only plain strings are compared by their content
+		if (message == mMessage || (message instanceof String && message.equals(mMessage))) return;
+		mMessage = message;
+		messageView.setText(message);
+	}
+
+	/**
+	 * Gets the button of the state
+	 * @param buttonId the id of the button
+	 * @return the button or null if the layout does not have it
+	 */
+	View getButton(int buttonId) {
+		if (buttonId != mButtonId) {
+			mButtonId = buttonId;
+			mButton = buttonId > 0 ? findView(buttonId) : null;
+		}
+		return mButton;
+	}
+
+	/**
+	 * Gets the view which is animated while the state is shown
+	 * @param animationViewId the id of the view
+	 * @return the view or null if the layout does not have it
+	 */
+	View getAnimationView(int animationViewId) {
+		if (animationViewId != mAnimationViewId) {
+			mAnimationViewId = animationViewId;
+			mAnimationView = animationViewId > 0 ? findView(animationViewId) : null;
+			if (mLoadingAnimator != null) mLoadingAnimator.stop();
+			mLoadingAnimator = null;
+		}
+		return mAnimationView;
+	}
+
+	/**
+	 * Gets the animator which spins the view animated while the state is shown. Requires API 11.
+	 * @param animationViewId the id of the view
+	 * @return the animator or null if the layout does not have the view
+	 */
+	LoadingAnimator getLoadingAnimator(int animationViewId) {
+		View animationView = getAnimationView(animationViewId);
+		if (mLoadingAnimator == null && animationView != null) mLoadingAnimator = new LoadingAnimator(animationView);
+		return mLoadingAnimator;
+	}
+
+	/**
+	 * Gets the animator which spins the view animated while the state is shown, if it was ever created
+	 * @return the animator or null
+	 */
+	LoadingAnimator peekLoadingAnimator() {
+		return mLoadingAnimator;
+	}
+
+	/**
+	 * Gets how many views all the holders have looked up by id. Only counted on the UI thread.
+	 * @return the number of lookups
+	 */
+	static int getLookupCount() {
+		return sLookupCount;
+	}
+
+	private View findView(int id) {
+		sLookupCount++;
+		return view.findViewById(id);
+	}
+}
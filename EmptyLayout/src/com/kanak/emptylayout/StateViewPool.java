@@ -0,0 +1,316 @@
+package com.kanak.emptylayout;
+
+import java.util.LinkedList;
+import java.util.ListIterator;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.os.Build;
+import android.util.Log;
+import android.view.ContextThemeWrapper;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * A pool of detached state layouts (loading, empty and error) which can be shared by many {@link EmptyLayout}s.
+ * Layouts are kept by layout resource and theme, the least recently released layout is dropped first when the pool is full
+ * and the pool is cleared when the system asks the app to trim its memory.
+ * <p>
+ * Pooled layouts are inflated with the application context, so they never keep an activity alive. They can also be
+ * inflated ahead of time on a background thread with {@link #prewarm(Context, int, int...)}.
+ */
+public class StateViewPool {
+
+	private static final String TAG = "StateViewPool";
+	private static StateViewPool sDefaultPool;
+
+	private final LinkedList<Entry> mEntries = new LinkedList<Entry>();
+	private int mMaxSize;
+	private int mHitCount;
+	private int mMissCount;
+	private int mEvictionCount;
+
+	// ---------------------------
+	// static variables
+	// ---------------------------
+	/**
+	 * The number of layouts kept by the default pool
+	 */
+	public final static int DEFAULT_MAX_SIZE = 12;
+
+	private static class Entry {
+		final int layoutRes;
+		final int themeRes;
+		final View view;
+
+		Entry(int layoutRes, int themeRes, View view) {
+			this.layoutRes = layoutRes;
+			this.themeRes = themeRes;
+			this.view = view;
+		}
+	}
+
+	// ---------------------------
+	// public methods
+	// ---------------------------
+
+	/**
+	 * Constructor
+	 * @param maxSize the maximum number of detached layouts kept by the pool
+	 */
+	public StateViewPool(int maxSize) {
+		if (maxSize <= 0) throw new IllegalArgumentException("maxSize <= 0");
+		mMaxSize = maxSize;
+	}
+
+	/**
+	 * Gets the pool shared by the whole process. On API 14 and above the pool is registered to be cleared when the system runs low on memory.
+	 * @param context any context of the app
+	 * @return the default pool
+	 */
+	public static synchronized StateViewPool getDefault(Context context) {
+		if (sDefaultPool == null) {
+			sDefaultPool = new StateViewPool(DEFAULT_MAX_SIZE);
+			if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.ICE_CREAM_SANDWICH) registerComponentCallbacks(context, sDefaultPool);
+		}
+		return sDefaultPool;
+	}
+
+	/**
+	 * Takes a detached layout out of the pool or inflates a new one if the pool does not have any
+	 * @param context the context used to get the application context
+	 * @param layoutRes the resource of the layout
+	 * @param themeRes the theme the layout is inflated with, or 0 to use the theme of the application
+	 * @return the layout
+	 */
+	public synchronized View obtain(Context context, int layoutRes, int themeRes) {
+		View view = poll(layoutRes, themeRes);
+		if (view != null) return view;
+		mMissCount++;
+		return createView(context, layoutRes, themeRes);
+	}
+
+	/**
+	 * Inflates layouts on a background thread and puts them into the pool, so that the first state change does not have to inflate them on the UI thread.
+	 * A layout which is not ready yet when it is needed is simply inflated on the UI thread as usual.
+	 * @param context the context used to get the application context
+	 * @param themeRes the theme the layouts are inflated with, or 0 to use the theme of the application
+	 * @param layoutRes the resources of the layouts
+	 */
+	public void prewarm(Context context, final int themeRes, final int... layoutRes) {
+		final Context appContext = context.getApplicationContext();
+		BackgroundExecutor.execute(new Runnable() {
+			@Override
+			public void run() {
+				for (int res : layoutRes) {
+					View view;
+					try {
+						view = createView(appContext, res, themeRes);
+					}
+					catch (RuntimeException e) {
+						// some views can only be created on a looper thread, these are inflated when they are needed
+						Log.w(TAG, "Could not prewarm layout " + res, e);
+						continue;
+					}
+					synchronized (StateViewPool.this) {
+						mEntries.addLast(new Entry(res, themeRes, view));
+						trimToSize(mMaxSize);
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * Puts a layout which is no longer used back into the pool. The layout is removed from its parent.
+	 * @param layoutRes the resource the layout was inflated from
+	 * @param themeRes the theme the layout was inflated with
+	 * @param view the layout
+	 */
+	public synchronized void release(int layoutRes, int themeRes, View view) {
+		if (view == null) return;
+		if (view.getParent() instanceof ViewGroup) ((ViewGroup) view.getParent()).removeView(view);
+		resetView(view);
+		view.setVisibility(View.VISIBLE);
+		mEntries.addLast(new Entry(layoutRes, themeRes, view));
+		trimToSize(mMaxSize);
+	}
+
+	/**
+	 * Removes all the layouts from the pool
+	 */
+	public synchronized void clear() {
+		mEntries.clear();
+	}
+
+	/**
+	 * Removes the least recently released layouts until the pool holds no more than the given number of layouts
+	 * @param maxSize the number of layouts to keep
+	 */
+	public synchronized void trimToSize(int maxSize) {
+		while (mEntries.size() > maxSize) {
+			mEntries.removeFirst();
+			mEvictionCount++;
+		}
+	}
+
+	// ---------------------------
+	// getters and setters
+	// ---------------------------
+	/**
+	 * Gets the maximum number of layouts kept by the pool
+	 * @return the maximum size of the pool
+	 */
+	public synchronized int getMaxSize() {
+		return mMaxSize;
+	}
+
+	/**
+	 * Sets the maximum number of layouts kept by the pool
+	 * @param maxSize the maximum size of the pool
+	 */
+	public synchronized void setMaxSize(int maxSize) {
+		if (maxSize <= 0) throw new IllegalArgumentException("maxSize <= 0");
+		mMaxSize = maxSize;
+		trimToSize(maxSize);
+	}
+
+	/**
+	 * Gets the number of layouts currently in the pool
+	 * @return the size of the pool
+	 */
+	public synchronized int size() {
+		return mEntries.size();
+	}
+
+	/**
+	 * Gets how many times a layout was reused from the pool
+	 * @return the number of hits
+	 */
+	public synchronized int getHitCount() {
+		return mHitCount;
+	}
+
+	/**
+	 * Gets how many times a layout had to be inflated because the pool did not have one
+	 * @return the number of misses
+	 */
+	public synchronized int getMissCount() {
+		return mMissCount;
+	}
+
+	/**
+	 * Gets how many layouts were dropped because the pool was full
+	 * @return the number of evictions
+	 */
+	public synchronized int getEvictionCount() {
+		return mEvictionCount;
+	}
+
+	// ---------------------------
+	// component callbacks
+	// ---------------------------
+
+	/**
+	 * Clears the pool when the system runs low on memory. Called for the default pool on API 14 and above, forward it from the application for other pools.
+	 * @param level the level given to {@link ComponentCallbacks2#onTrimMemory(int)}
+	 */
+	public void onTrimMemory(int level) {
+		if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) clear();
+	}
+
+	/**
+	 * Clears the pool when the whole system is low on memory
+	 */
+	public void onLowMemory() {
+		clear();
+	}
+
+	/**
+	 * Clears the pool when the configuration changes
+	 * @param newConfig the new configuration
+	 */
+	public void onConfigurationChanged(Configuration newConfig) {
+		// layouts inflated for the old configuration may use the wrong resources
+		clear();
+	}
+
+	// ---------------------------
+	// private methods
+	// ---------------------------
+
+	// ComponentCallbacks2 only exists on API 14 and above, so the pool can't implement it without failing to load on older versions
+	private static void registerComponentCallbacks(Context context, final StateViewPool pool) {
+		context.getApplicationContext().registerComponentCallbacks(new ComponentCallbacks2() {
+			@Override
+			public void onTrimMemory(int level) {
+				pool.onTrimMemory(level);
+			}
+
+			@Override
+			public void onLowMemory() {
+				pool.onLowMemory();
+			}
+
+			@Override
+			public void onConfigurationChanged(Configuration newConfig) {
+				pool.onConfigurationChanged(newConfig);
+			}
+		});
+	}
+
+	/**
+	 * Gets the default pool without creating it
+	 * @return the default pool or null if nobody asked for it yet
+	 */
+	static synchronized StateViewPool peekDefault() {
+		return sDefaultPool;
+	}
+
+	/**
+	 * Takes a layout out of the pool without inflating one on a miss
+	 * @return the layout or null if the pool does not have one
+	 */
+	synchronized View poll(int layoutRes, int themeRes) {
+		ListIterator<Entry> iterator = mEntries.listIterator(mEntries.size());
+		while (iterator.hasPrevious()) {
+			Entry entry = iterator.previous();
+			if (entry.layoutRes == layoutRes && entry.themeRes == themeRes) {
+				iterator.remove();
+				mHitCount++;
+				return entry.view;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Removes what the previous owner left on a detached layout: the click listeners, which usually belong to an activity,
+	 * and the animations, alpha, translation and rotation of its transitions and loading animation
+	 * @param view the layout
+	 */
+	static void resetView(View view) {
+		view.clearAnimation();
+		// only clickable views can have a listener, and setting one makes a view clickable
+		if (view.isClickable()) view.setOnClickListener(null);
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB) {
+			view.setAlpha(1);
+			view.setTranslationX(0);
+			view.setTranslationY(0);
+			view.setRotation(0);
+		}
+		if (view instanceof ViewGroup) {
+			ViewGroup group = (ViewGroup) view;
+			for (int i = 0; i < group.getChildCount(); i++) resetView(group.getChildAt(i));
+		}
+	}
+
+	private static View createView(Context context, int layoutRes, int themeRes) {
+		Context appContext = context.getApplicationContext();
+		if (themeRes == 0) themeRes = appContext.getApplicationInfo().theme;
+		Context themedContext = themeRes != 0 ? new ContextThemeWrapper(appContext, themeRes) : appContext;
+		return CompiledLayouts.inflate(LayoutInflater.from(themedContext), layoutRes);
+	}
+}
@@ -0,0 +1,365 @@
+package com.kanak.emptylayoutbenchmark;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import com.kanak.emptylayout.EmptyLayout;
+
+import android.app.Activity;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.Debug;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ListView;
+import android.widget.TextView;
+
+/**
+ * Measures the cost of the state changes of EmptyLayout and writes the results as JSON to
+ * <code>files/emptylayout-benchmark.json</code> in the app's data directory and to logcat, so they can be compared between releases.
+ * The structural cost of the state changes is also checked against a {@link CostBudget}, the report's <code>passed</code> is false when a budget is exceeded
+ * and {@link CostBudgetTest} fails.
+ * Pull the results with <code>adb shell run-as com.kanak.emptylayoutbenchmark cat files/emptylayout-benchmark.json</code>.
+ */
+public class BenchmarkActivity extends Activity {
+
+	private static final String TAG = "EmptyLayoutBenchmark";
+	private static final String RESULT_FILE = "emptylayout-benchmark.json";
+	private static final int WARMUP_ITERATIONS = 20;
+	private static final int FIRST_SHOW_ITERATIONS = 100;
+	private static final int TRANSITION_ITERATIONS = 1000;
+	private static final int BUDGET_ITERATIONS = 300;
+
+	/**
+	 * Only check the budgets, without measuring the timings
+	 */
+	public static final String EXTRA_BUDGETS_ONLY = "budgetsOnly";
+
+	private CountingFrameLayout mContainer;
+	private TextView mResultsView;
+	private final CountDownLatch mReportLatch = new CountDownLatch(1);
+	private volatile JSONObject mReport;
+
+	/**
+	 * A piece of code measured by the benchmark
+	 */
+	private interface Operation {
+		void run(int iteration);
+	}
+
+	/**
+	 * Prepares a new EmptyLayout for every iteration, outside the measured time
+	 */
+	private abstract class FirstShowOperation implements Operation {
+		EmptyLayout emptyLayout;
+
+		void setUp() {
+			mContainer.removeAllViews();
+			ListView listView = new ListView(BenchmarkActivity.this);
+			mContainer.addView(listView);
+			emptyLayout = new EmptyLayout(BenchmarkActivity.this, listView);
+		}
+	}
+
+	@Override
+	protected void onCreate(Bundle savedInstanceState) {
+		super.onCreate(savedInstanceState);
+		setContentView(R.layout.activity_benchmark);
+		mContainer = (CountingFrameLayout) findViewById(R.id.frameLayoutBenchmark);
+		mResultsView = (TextView) findViewById(R.id.textViewResults);
+
+		// run after the first frame, so the window is attached like in a real screen
+		mContainer.post(new Runnable() {
+			@Override
+			public void run() {
+				runBenchmarks();
+			}
+		});
+	}
+
+	private void runBenchmarks() {
+		try {
+			JSONArray results = new JSONArray();
+
+			if (!getIntent().getBooleanExtra(EXTRA_BUDGETS_ONLY, false)) measureStateChanges(results);
+
+			// structural cost of the state changes: the three default layouts of 10 views in all, each a linear layout with its views,
+			// and the single view of flat rendering. Every limit is the exact cost of the library once its layouts exist, not a measured
+			// value with headroom: one layout pass, no view lookups and no allocations per change, so any regression fails the budget.
+			JSONArray budgets = new JSONArray();
+			budgets.put(checkBudget("defaultLayouts", createShownEmptyLayout(false),
+					new CostBudget().setMaxViews(10).setMaxDepth(2).setMaxLayoutPasses(1).setMaxViewLookups(0).setMaxAllocations(0)));
+			budgets.put(checkBudget("flatRendering", createShownEmptyLayout(true),
+					new CostBudget().setMaxViews(1).setMaxDepth(1).setMaxLayoutPasses(1).setMaxViewLookups(0).setMaxAllocations(0)));
+			boolean passed = true;
+			for (int i = 0; i < budgets.length(); i++) {
+				if (!budgets.getJSONObject(i).getBoolean("passed")) passed = false;
+			}
+
+			JSONObject report = new JSONObject();
+			report.put("device", Build.MANUFACTURER + " " + Build.MODEL);
+			report.put("sdk", Build.VERSION.SDK_INT);
+			report.put("timestamp", System.currentTimeMillis());
+			report.put("passed", passed);
+			report.put("results", results);
+			report.put("budgets", budgets);
+			publish(report);
+		}
+		catch (JSONException e) {
+			Log.e(TAG, "Could not write the results", e);
+		}
+		finally {
+			mContainer.removeAllViews();
+			mReportLatch.countDown();
+		}
+	}
+
+	/**
+	 * Waits until the benchmark has finished
+	 * @param timeoutMillis how long to wait at most
+	 * @return the report or null if the benchmark did not finish in time or the report could not be written
+	 */
+	public JSONObject awaitReport(long timeoutMillis) throws InterruptedException {
+		mReportLatch.await(timeoutMillis, TimeUnit.MILLISECONDS);
+		return mReport;
+	}
+
+	private void measureStateChanges(JSONArray results) throws JSONException {
+		// first state change of a new instance, which inflates the three default layouts
+		final FirstShowOperation firstShow = new FirstShowOperation() {
+			@Override
+			public void run(int iteration) {
+				emptyLayout.showLoading();
+			}
+		};
+		results.put(measureFirstShow("firstShowLoading", firstShow));
+
+		// first state change when only the shown layout is inflated
+		final FirstShowOperation lazyFirstShow = new FirstShowOperation() {
+			@Override
+			void setUp() {
+				super.setUp();
+				emptyLayout.setLazyInflation(true);
+			}
+
+			@Override
+			public void run(int iteration) {
+				emptyLayout.showLoading();
+			}
+		};
+		results.put(measureFirstShow("firstShowLoadingLazy", lazyFirstShow));
+
+		// changes between the states once everything is inflated
+		final EmptyLayout emptyLayout = createShownEmptyLayout();
+		results.put(measure("transition", TRANSITION_ITERATIONS, new Operation() {
+			@Override
+			public void run(int iteration) {
+				showState(emptyLayout, iteration);
+			}
+		}));
+
+		// showing the state which is already shown only refreshes the messages and visibilities
+		results.put(measure("refreshMessages", TRANSITION_ITERATIONS, new Operation() {
+			@Override
+			public void run(int iteration) {
+				emptyLayout.showEmpty();
+			}
+		}));
+
+		// showing the loading state again restarts the loading animation
+		results.put(measure("loadingTransition", TRANSITION_ITERATIONS, new Operation() {
+			@Override
+			public void run(int iteration) {
+				if (iteration % 2 == 0) emptyLayout.showLoading();
+				else emptyLayout.showEmpty();
+			}
+		}));
+	}
+
+	private EmptyLayout createShownEmptyLayout() {
+		return createShownEmptyLayout(false);
+	}
+
+	private EmptyLayout createShownEmptyLayout(boolean flatRendering) {
+		mContainer.removeAllViews();
+		ListView listView = new ListView(this);
+		mContainer.addView(listView);
+		EmptyLayout emptyLayout = new EmptyLayout(this, listView);
+		emptyLayout.setFlatRendering(flatRendering);
+		emptyLayout.showLoading();
+		return emptyLayout;
+	}
+
+	private static void showState(EmptyLayout emptyLayout, int iteration) {
+		switch (iteration % 3) {
+		case 0:
+			emptyLayout.showLoading();
+			break;
+		case 1:
+			emptyLayout.showEmpty();
+			break;
+		default:
+			emptyLayout.showError();
+			break;
+		}
+	}
+
+	private JSONObject checkBudget(String name, EmptyLayout emptyLayout, CostBudget budget) throws JSONException {
+		// every state is shown once, so all the layouts exist before anything is counted
+		for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+			showState(emptyLayout, i);
+			mContainer.runLayoutPass();
+		}
+		CostBudget.Cost cost = new CostBudget.Cost();
+		for (int i = 0; i < mContainer.getChildCount(); i++) {
+			View child = mContainer.getChildAt(i);
+			if (child == emptyLayout.getListView()) continue;
+			cost.views += countViews(child);
+			cost.depth = Math.max(cost.depth, getDepth(child));
+		}
+
+		// a layout pass after every change, as the next frame would do, is part of the cost of the change.
+		// Only the change itself is counted for the allocations, the measuring of the text views belongs to the framework.
+		mContainer.resetCounts();
+		int lookups = EmptyLayout.getViewLookupCount();
+		long allocations = 0;
+		for (int i = 0; i < BUDGET_ITERATIONS; i++) {
+			startAllocationCount();
+			showState(emptyLayout, i);
+			allocations += stopAllocationCount();
+			mContainer.runLayoutPass();
+		}
+		cost.layoutPasses = (double) mContainer.getMeasureCount() / BUDGET_ITERATIONS;
+		cost.viewLookups = (double) (EmptyLayout.getViewLookupCount() - lookups) / BUDGET_ITERATIONS;
+		cost.allocations = (double) allocations / BUDGET_ITERATIONS;
+
+		List<String> violations = budget.check(cost);
+		for (String violation : violations) Log.e(TAG, "Budget exceeded by " + name + ": " + violation);
+		JSONObject result = new JSONObject();
+		result.put("name", name);
+		result.put("views", cost.views);
+		result.put("depth", cost.depth);
+		result.put("layoutPassesPerOp", cost.layoutPasses);
+		result.put("viewLookupsPerOp", cost.viewLookups);
+		result.put("allocationsPerOp", cost.allocations);
+		result.put("violations", new JSONArray(violations));
+		result.put("passed", violations.isEmpty());
+		return result;
+	}
+
+	private static int countViews(View view) {
+		int count = 1;
+		if (view instanceof ViewGroup) {
+			ViewGroup group = (ViewGroup) view;
+			for (int i = 0; i < group.getChildCount(); i++) count += countViews(group.getChildAt(i));
+		}
+		return count;
+	}
+
+	private static int getDepth(View view) {
+		int depth = 0;
+		if (view instanceof ViewGroup) {
+			ViewGroup group = (ViewGroup) view;
+			for (int i = 0; i < group.getChildCount(); i++) depth = Math.max(depth, getDepth(group.getChildAt(i)));
+		}
+		return depth + 1;
+	}
+
+	private JSONObject measureFirstShow(String name, FirstShowOperation operation) throws JSONException {
+		for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+			operation.setUp();
+			operation.run(i);
+		}
+		long[] times = new long[FIRST_SHOW_ITERATIONS];
+		long allocations = 0;
+		for (int i = 0; i < FIRST_SHOW_ITERATIONS; i++) {
+			operation.setUp();
+			startAllocationCount();
+			long start = System.nanoTime();
+			operation.run(i);
+			times[i] = System.nanoTime() - start;
+			allocations += stopAllocationCount();
+		}
+		return createResult(name, times, allocations);
+	}
+
+	private JSONObject measure(String name, int iterations, Operation operation) throws JSONException {
+		for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+			operation.run(i);
+		}
+		long[] times = new long[iterations];
+		startAllocationCount();
+		for (int i = 0; i < iterations; i++) {
+			long start = System.nanoTime();
+			operation.run(i);
+			times[i] = System.nanoTime() - start;
+		}
+		long allocations = stopAllocationCount();
+		return createResult(name, times, allocations);
+	}
+
+	@SuppressWarnings("deprecation")
+	private static void startAllocationCount() {
+		Debug.resetThreadAllocCount();
+		Debug.startAllocCounting();
+	}
+
+	@SuppressWarnings("deprecation")
+	private static long stopAllocationCount() {
+		Debug.stopAllocCounting();
+		return Debug.getThreadAllocCount();
+	}
+
+	private static JSONObject createResult(String name, long[] times, long allocations) throws JSONException {
+		long total = 0;
+		for (long time : times) total += time;
+		long[] sorted = times.clone();
+		Arrays.sort(sorted);
+
+		JSONObject result = new JSONObject();
+		result.put("name", name);
+		result.put("iterations", times.length);
+		result.put("meanNs", total / times.length);
+		result.put("medianNs", sorted[sorted.length / 2]);
+		result.put("p90Ns", sorted[sorted.length * 9 / 10]);
+		result.put("minNs", sorted[0]);
+		result.put("allocationsPerOp", (double) allocations / times.length);
+		return result;
+	}
+
+	private void publish(JSONObject report) throws JSONException {
+		mReport = report;
+		String json = report.toString(2);
+		Log.i(TAG, json);
+		mResultsView.setText(json);
+
+		FileOutputStream out = null;
+		try {
+			out = new FileOutputStream(new File(getFilesDir(), RESULT_FILE));
+			out.write(json.getBytes("UTF-8"));
+		}
+		catch (IOException e) {
+			Log.e(TAG, "Could not write " + RESULT_FILE, e);
+		}
+		finally {
+			if (out != null) {
+				try {
+					out.close();
+				}
+				catch (IOException e) {
+					// nothing to do
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package com.kanak.emptylayoutbenchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The structural cost a state change may have: the views the state layouts add next to the list, how deep they are nested,
+ * the layout passes, the view lookups and the objects allocated per state change. The benchmark checks every scenario against its budget and
+ * reports the run as failed when one is exceeded, and {@link CostBudgetTest} fails, so neither the library nor custom state layouts can get more expensive unnoticed.
+ * A limit which is not set is not checked.
+ */
+public class CostBudget {
+
+	private int mMaxViews = -1;
+	private int mMaxDepth = -1;
+	private double mMaxLayoutPasses = -1;
+	private double mMaxViewLookups = -1;
+	private double mMaxAllocations = -1;
+
+	/**
+	 * The cost measured for a scenario
+	 */
+	public static class Cost {
+		/**
+		 * The number of views added next to the list
+		 */
+		public int views;
+		/**
+		 * How deep the added views are nested, 1 for a single view
+		 */
+		public int depth;
+		/**
+		 * The number of layout passes per state change
+		 */
+		public double layoutPasses;
+		/**
+		 * The number of <code>findViewById()</code> calls per state change
+		 */
+		public double viewLookups;
+		/**
+		 * The number of objects allocated per state change, by the change itself and not the layout pass after it
+		 */
+		public double allocations;
+	}
+
+	/**
+	 * Sets how many views the state layouts may add next to the list
+	 * @param maxViews the number of views
+	 * @return this budget
+	 */
+	public CostBudget setMaxViews(int maxViews) {
+		this.mMaxViews = maxViews;
+		return this;
+	}
+
+	/**
+	 * Sets how deep the added views may be nested
+	 * @param maxDepth the depth, 1 for single views
+	 * @return this budget
+	 */
+	public CostBudget setMaxDepth(int maxDepth) {
+		this.mMaxDepth = maxDepth;
+		return this;
+	}
+
+	/**
+	 * Sets how many layout passes a state change may cause on average
+	 * @param maxLayoutPasses the number of passes per state change
+	 * @return this budget
+	 */
+	public CostBudget setMaxLayoutPasses(double maxLayoutPasses) {
+		this.mMaxLayoutPasses = maxLayoutPasses;
+		return this;
+	}
+
+	/**
+	 * Sets how many views a state change may look up by id on average
+	 * @param maxViewLookups the number of <code>findViewById()</code> calls per state change
+	 * @return this budget
+	 */
+	public CostBudget setMaxViewLookups(double maxViewLookups) {
+		this.mMaxViewLookups = maxViewLookups;
+		return this;
+	}
+
+	/**
+	 * Sets how many objects a state change may allocate on average
+	 * @param maxAllocations the number of objects per state change
+	 * @return this budget
+	 */
+	public CostBudget setMaxAllocations(double maxAllocations) {
+		this.mMaxAllocations = maxAllocations;
+		return this;
+	}
+
+	/**
+	 * Checks a cost against this budget
+	 * @param cost the measured cost
+	 * @return a description of every exceeded limit, empty if the cost is within the budget
+	 */
+	public List<String> check(Cost cost) {
+		List<String> violations = new ArrayList<String>();
+		if (mMaxViews >= 0 && cost.views > mMaxViews) violations.add("views " + cost.views + " > " + mMaxViews);
+		if (mMaxDepth >= 0 && cost.depth > mMaxDepth) violations.add("depth " + cost.depth + " > " + mMaxDepth);
+		if (mMaxLayoutPasses >= 0 && cost.layoutPasses > mMaxLayoutPasses) violations.add("layoutPasses " + cost.layoutPasses + " > " + mMaxLayoutPasses);
+		if (mMaxViewLookups >= 0 && cost.viewLookups > mMaxViewLookups) violations.add("viewLookups " + cost.viewLookups + " > " + mMaxViewLookups);
+		if (mMaxAllocations >= 0 && cost.allocations > mMaxAllocations) violations.add("allocations " + cost.allocations + " > " + mMaxAllocations);
+		return violations;
+	}
+}
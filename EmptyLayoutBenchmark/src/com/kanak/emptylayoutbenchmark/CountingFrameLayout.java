@@ -0,0 +1,67 @@
+package com.kanak.emptylayoutbenchmark;
+
+import android.content.Context;
+import android.util.AttributeSet;
+import android.widget.FrameLayout;
+
+/**
+ * A frame layout which counts its measure and layout passes. Used as the parent of the list, so the state layouts are added to it
+ * and every layout they request shows up as a pass of this layout.
+ */
+public class CountingFrameLayout extends FrameLayout {
+
+	private int mMeasureCount;
+	private int mLayoutCount;
+
+	public CountingFrameLayout(Context context) {
+		super(context);
+	}
+
+	public CountingFrameLayout(Context context, AttributeSet attrs) {
+		super(context, attrs);
+	}
+
+	/**
+	 * Gets how many times this layout was measured since the counts were reset
+	 * @return the number of measure passes
+	 */
+	public int getMeasureCount() {
+		return mMeasureCount;
+	}
+
+	/**
+	 * Gets how many times this layout was laid out since the counts were reset
+	 * @return the number of layout passes
+	 */
+	public int getLayoutCount() {
+		return mLayoutCount;
+	}
+
+	/**
+	 * Sets the counts back to zero
+	 */
+	public void resetCounts() {
+		mMeasureCount = 0;
+		mLayoutCount = 0;
+	}
+
+	/**
+	 * Measures and lays out this layout at its current size, as the next frame would. Nothing is measured again unless a child has requested a layout.
+	 */
+	public void runLayoutPass() {
+		measure(MeasureSpec.makeMeasureSpec(getWidth(), MeasureSpec.EXACTLY), MeasureSpec.makeMeasureSpec(getHeight(), MeasureSpec.EXACTLY));
+		layout(getLeft(), getTop(), getRight(), getBottom());
+	}
+
+	@Override
+	protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+		mMeasureCount++;
+		super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+	}
+
+	@Override
+	protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+		mLayoutCount++;
+		super.onLayout(changed, left, top, right, bottom);
+	}
+}
@@ -0,0 +1,31 @@
+package com.kanak.emptylayoutbenchmark;
+
+import android.app.Activity;
+import android.os.Bundle;
+import android.widget.FrameLayout;
+import android.widget.ListView;
+
+/**
+ * A screen with nothing but an empty list, which the tests put an EmptyLayout on
+ */
+public class ListHostActivity extends Activity {
+
+	private ListView mListView;
+
+	@Override
+	protected void onCreate(Bundle savedInstanceState) {
+		super.onCreate(savedInstanceState);
+		FrameLayout container = new FrameLayout(this);
+		mListView = new ListView(this);
+		container.addView(mListView);
+		setContentView(container);
+	}
+
+	/**
+	 * Gets the list of this screen
+	 * @return the list view
+	 */
+	public ListView getListView() {
+		return mListView;
+	}
+}
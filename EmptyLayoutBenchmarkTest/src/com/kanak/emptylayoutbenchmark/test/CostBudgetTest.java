@@ -0,0 +1,35 @@
+package com.kanak.emptylayoutbenchmark.test;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import com.kanak.emptylayoutbenchmark.BenchmarkActivity;
+
+import android.content.Intent;
+import android.test.ActivityInstrumentationTestCase2;
+
+/**
+ * Fails when a state change exceeds its {@link com.kanak.emptylayoutbenchmark.CostBudget}, e.g. because it adds views, lays out more often, looks views up again or allocates more.
+ * Run with <code>adb shell am instrument -w com.kanak.emptylayoutbenchmark.test/android.test.InstrumentationTestRunner</code>.
+ */
+public class CostBudgetTest extends ActivityInstrumentationTestCase2<BenchmarkActivity> {
+
+	private static final long REPORT_TIMEOUT = 60000;
+
+	public CostBudgetTest() {
+		super(BenchmarkActivity.class);
+	}
+
+	public void testStateChangesAreWithinBudget() throws Exception {
+		Intent intent = new Intent();
+		intent.putExtra(BenchmarkActivity.EXTRA_BUDGETS_ONLY, true);
+		setActivityIntent(intent);
+		JSONObject report = getActivity().awaitReport(REPORT_TIMEOUT);
+		assertNotNull("The budgets were not checked", report);
+		JSONArray budgets = report.getJSONArray("budgets");
+		for (int i = 0; i < budgets.length(); i++) {
+			JSONObject budget = budgets.getJSONObject(i);
+			assertTrue(budget.getString("name") + " exceeds its budget: " + budget.getJSONArray("violations"), budget.getBoolean("passed"));
+		}
+	}
+}
@@ -0,0 +1,92 @@
+package com.kanak.emptylayoutbenchmark.test;
+
+import java.lang.ref.WeakReference;
+
+import com.kanak.emptylayout.EmptyLayout;
+import com.kanak.emptylayout.StateViewPool;
+import com.kanak.emptylayoutbenchmark.ListHostActivity;
+
+import android.app.Activity;
+import android.os.Build;
+import android.test.InstrumentationTestCase;
+import android.view.View;
+
+/**
+ * Checks that an empty layout which outlives its activity does not keep the activity alive once it is released, e.g. from a presenter or a retained fragment.
+ * Run with <code>adb shell am instrument -w com.kanak.emptylayoutbenchmark.test/android.test.InstrumentationTestRunner</code>.
+ */
+public class ReleaseLeakTest extends InstrumentationTestCase {
+
+	private static final int GC_ATTEMPTS = 20;
+	private static final long GC_INTERVAL = 500;
+
+	/**
+	 * Something done with the activity before it is finished
+	 */
+	private interface ActivityTask {
+		void run(ListHostActivity activity);
+	}
+
+	public void testReleaseDoesNotLeakActivity() throws Throwable {
+		// the empty layout and its pool are kept after the activity is gone
+		final StateViewPool pool = new StateViewPool(3);
+		final EmptyLayout[] emptyLayout = new EmptyLayout[1];
+		WeakReference<Activity> activity = runAndFinish(new ActivityTask() {
+			@Override
+			public void run(final ListHostActivity activity) {
+				emptyLayout[0] = new EmptyLayout(activity, activity.getListView());
+				emptyLayout[0].setStateViewPool(pool);
+				emptyLayout[0].setErrorButtonClickListener(new View.OnClickListener() {
+					@Override
+					public void onClick(View v) {
+						activity.finish();
+					}
+				});
+				emptyLayout[0].showError();
+				emptyLayout[0].release();
+			}
+		});
+		assertCollected("The released empty layout keeps the activity", activity);
+		assertTrue(emptyLayout[0].isReleased());
+	}
+
+	public void testBindToActivityReleasesOnDestroy() throws Throwable {
+		if (Build.VERSION.SDK_INT < Build.VERSION_CODES.ICE_CREAM_SANDWICH) return;
+		final StateViewPool pool = new StateViewPool(3);
+		final EmptyLayout[] emptyLayout = new EmptyLayout[1];
+		WeakReference<Activity> activity = runAndFinish(new ActivityTask() {
+			@Override
+			public void run(ListHostActivity activity) {
+				emptyLayout[0] = new EmptyLayout(activity, activity.getListView());
+				emptyLayout[0].setStateViewPool(pool);
+				emptyLayout[0].bindToActivity(activity);
+				emptyLayout[0].showLoading();
+			}
+		});
+		assertCollected("The bound empty layout keeps the destroyed activity", activity);
+		assertTrue("The bound empty layout was not released", emptyLayout[0].isReleased());
+	}
+
+	private WeakReference<Activity> runAndFinish(final ActivityTask task) throws Throwable {
+		final ListHostActivity activity = launchActivity(getInstrumentation().getTargetContext().getPackageName(), ListHostActivity.class, null);
+		runTestOnUiThread(new Runnable() {
+			@Override
+			public void run() {
+				task.run(activity);
+				activity.finish();
+			}
+		});
+		getInstrumentation().waitForIdleSync();
+		return new WeakReference<Activity>(activity);
+	}
+
+	private static void assertCollected(String message, WeakReference<?> reference) throws InterruptedException {
+		// the activity is only destroyed after the next one is shown, so it is collected a while after it finished
+		for (int i = 0; i < GC_ATTEMPTS && reference.get() != null; i++) {
+			Runtime.getRuntime().gc();
+			System.runFinalization();
+			Thread.sleep(GC_INTERVAL);
+		}
+		assertNull(message, reference.get());
+	}
+}